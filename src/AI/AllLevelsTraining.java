@@ -0,0 +1,123 @@
+package AI;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import JavaNN.Util.Config;
+import TileMap.LevelCompiler;
+
+/* Trains one population per level at the same time, headless, so a single run covers the whole level set.
+* Every level is its own task on a thread pool sized to the cores, with its own tilemap, simulation and genetic algorithm.
+* Each level reports its progress once per generation, and saves its winner as ai_models/<level>-win.gdnn along with the usual replay. */
+//usage: java AI.AllLevelsTraining [-levels Level1Map,...] [-threads n], followed by the arguments in HeadlessTraining.USAGE except the level
+public class AllLevelsTraining {
+	public static final String[] LEVELS = LevelCompiler.LEVELS;
+
+	//how one level's training went
+	private static class Result {
+		String level;
+		boolean solved;
+		int generations;
+		double best;
+		double seconds;
+		String error;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String[] levels = LEVELS;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean understood = true;
+		ArrayList<String> trainingArgs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			boolean hasValue = i + 1 < args.length;
+			if (args[i].equals("-levels") && hasValue) levels = parseLevels(args[++i]);
+			else if (args[i].equals("-threads") && hasValue) threads = parseCount(args[++i]);
+			else if (args[i].equals("-levels") || args[i].equals("-threads")) understood = false;
+			else trainingArgs.add(args[i]);
+		}
+		RunConfig config = HeadlessTraining.parseArgs(trainingArgs.toArray(new String[0]));
+		if (!understood || levels == null || config == null || threads < 1) {
+			System.out.println("usage: java AI.AllLevelsTraining [-levels Level1Map,...] [-threads n] " + HeadlessTraining.USAGE);
+			return;
+		}
+		threads = Math.min(threads, levels.length);
+		System.out.println("Training " + Arrays.toString(levels) + " with " + config.populationSize + " agents each on " + threads + " threads, seed " + config.seed);
+
+		Config.saveMostFitPerGen = false;
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayList<Result> results = new ArrayList<Result>();
+		try {
+			ArrayList<Future<Result>> futures = new ArrayList<Future<Result>>();
+			for (int i = 0; i < levels.length; i++) {
+				String level = levels[i];
+				RunConfig levelConfig = config.withSeed(GeneticAlgorithm.split(config.seed, i));
+				futures.add(pool.submit(() -> train(level, levelConfig)));
+			}
+			for (Future<Result> future : futures) {
+				results.add(future.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		System.out.printf("All levels ran for %.1f s%n", (System.nanoTime() - start) / 1e9);
+		for (Result r : results) {
+			String outcome = r.error != null ? "failed (" + r.error + ")" : r.solved ? "finished on generation " + (r.generations - 1) : "not finished";
+			System.out.println(String.format("%-20s %s, %d generations, best %.0f, %.1f s", r.level, outcome, r.generations, r.best, r.seconds));
+		}
+	}
+
+	//the comma separated level names, trimmed, null if one of them is empty
+	static String[] parseLevels(String list) {
+		String[] levels = list.split(",", -1);
+		for (int i = 0; i < levels.length; i++) {
+			levels[i] = levels[i].trim();
+			if (levels[i].isEmpty()) return null;
+		}
+		return levels;
+	}
+
+	//a whole number given as a flag's value, -1 if it is not one
+	static int parseCount(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	//trains a population on the level until it finishes the level or runs out of generations
+	private static Result train(String level, RunConfig config) {
+		Result r = new Result();
+		r.level = level;
+		long start = System.nanoTime();
+		try {
+			TrainingSimulation sim = new TrainingSimulation(HeadlessTraining.loadLevel(level), config);
+			sim.setWinnerModelPath("ai_models/" + level + "-win" + ModelFile.EXTENSION);
+			double levelEnd = sim.getLevelEnd();
+			sim.startGeneration();
+			while (true) {
+				sim.runGeneration();
+				r.best = Math.max(r.best, sim.getBestFitness());
+				System.out.println(String.format("[%s] gen %d: best %.0f (%.0f%%)", level, sim.getGeneration(), sim.getBestFitness(), 100 * Math.min(1, r.best / levelEnd)));
+				if (sim.hasWinner()) {
+					r.solved = true;
+					System.out.println("[" + level + "] finished training on generation " + sim.getGeneration() + ".");
+					break;
+				}
+				if (sim.getGeneration() + 1 >= config.generations) break;
+				sim.nextGeneration();
+			}
+			r.generations = sim.getGeneration() + 1;
+		} catch (Exception e) {
+			r.error = e.toString();
+			System.out.println("[" + level + "] failed: " + e);
+		}
+		r.seconds = (System.nanoTime() - start) / 1e9;
+		return r;
+	}
+}
@@ -0,0 +1,128 @@
+package AI;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/* Training checkpoint (.gdck), the population of a finished generation and everything needed to breed the next one the same way, big-endian:
+*
+*	int		magic				"GDCK"
+*	short	version				FORMAT_VERSION
+*	UTF		levelId
+*	long	seed				the run's seed, see GeneticAlgorithm
+*	int		generation			generation the agents were scored in
+*	int		populationSize		N
+*	int		numGenes			G
+*	N times	double fitness, double[G] genes
+*	double	curriculumGoal		since version 2, the curriculum as the next generation will start, see TrainingSimulation
+*	int		generationsAtStart
+*	boolean	hasStart			if so, the input up to the curriculum start follows as a replay
+*	int		numCols				since version 3, the run's DeathMap
+*	int		numCauses			C
+*	numCols times long[C] deaths
+*	numCols times int generations stuck
+*	boolean	hasCache			since version 4, if so the run's FitnessCache follows:
+*	int		numEntries			least recently used first
+*	numEntries times long keyHi, long keyLo, double fitness, boolean hasReplay, replay
+*
+* Resuming from a checkpoint with the same settings gives the same generations as the run that saved it would have,
+* the fitness cache included, so even the generations' cache hits and tick counts match.
+* Saving one also writes the death map as csv next to it, see deathsPath. */
+public class Checkpoint {
+	public static final int MAGIC = 0x4744434B;		//"GDCK"
+	public static final short FORMAT_VERSION = 4;
+	public static final String EXTENSION = ".gdck";
+	public static final String DIR = "checkpoints";
+
+	//the latest checkpoint of a level
+	public static String path(String levelId) {
+		return DIR + "/" + levelId + EXTENSION;
+	}
+
+	//the death map csv written along with a checkpoint
+	public static String deathsPath(String path) {
+		if (path.endsWith(EXTENSION)) path = path.substring(0, path.length() - EXTENSION.length());
+		return path + "-deaths.csv";
+	}
+
+	//saves the generation that just ran, call it before nextGeneration
+	//written to a temporary file first, so a run killed while saving keeps its previous checkpoint
+	public static void save(String path, TrainingSimulation sim) throws IOException {
+		File file = new File(path);
+		if (file.getParentFile() != null) file.getParentFile().mkdirs();
+		File temp = new File(path + ".tmp");
+		sim.planNextStart();
+		GenePool pool = sim.getGenePool();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeShort(FORMAT_VERSION);
+			out.writeUTF(sim.getLevelId());
+			out.writeLong(sim.getSeed());
+			out.writeInt(sim.getGeneration());
+			out.writeInt(pool.getSize());
+			out.writeInt(pool.getNumGenes());
+			double[] genes = pool.getGenes();
+			for (int i = 0; i < pool.getSize(); i++) {
+				out.writeDouble(pool.getFitness(i));
+				for (int g = pool.offset(i); g < pool.offset(i + 1); g++) {
+					out.writeDouble(genes[g]);
+				}
+			}
+			out.writeDouble(sim.getCurriculumGoal());
+			out.writeInt(sim.getGenerationsAtStart());
+			out.writeBoolean(sim.getStart() != null);
+			if (sim.getStart() != null) sim.getStart().getInput().write(out);
+			sim.getDeathMap().write(out);
+			out.writeBoolean(sim.getCache() != null);
+			if (sim.getCache() != null) sim.getCache().write(out);
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		sim.getDeathMap().saveCsv(deathsPath(path));
+	}
+
+	//puts the checkpoint's population, generation and seed into a simulation of the same level, population size and network
+	//call nextGeneration afterwards to carry on training
+	public static void load(String path, TrainingSimulation sim) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+			if (in.readInt() != MAGIC) throw new IOException(path + " is not a checkpoint");
+			short version = in.readShort();
+			if (version < 1 || version > FORMAT_VERSION) throw new IOException(path + " has unsupported version " + version);
+			String levelId = in.readUTF();
+			if (!levelId.equals(sim.getLevelId())) throw new IOException(path + " is a checkpoint of " + levelId + ", not " + sim.getLevelId());
+			long seed = in.readLong();
+			int generation = in.readInt();
+			int populationSize = in.readInt();
+			int numGenes = in.readInt();
+			GenePool pool = sim.getGenePool();
+			if (populationSize != pool.getSize()) throw new IOException(path + " has " + populationSize + " agents, the run has " + pool.getSize());
+			if (numGenes != pool.getNumGenes()) throw new IOException(path + " has a different network architecture");
+			double[] genes = pool.getGenes();
+			for (int i = 0; i < populationSize; i++) {
+				pool.setFitness(i, in.readDouble());
+				for (int g = pool.offset(i); g < pool.offset(i + 1); g++) {
+					genes[g] = in.readDouble();
+				}
+			}
+			sim.restore(generation, seed);
+			if (version >= 2) {
+				double goal = in.readDouble();
+				int generationsAtStart = in.readInt();
+				Replay start = in.readBoolean() ? Replay.read(in, path) : null;
+				sim.restoreCurriculum(start, goal, generationsAtStart);
+			}
+			if (version >= 3) sim.getDeathMap().read(in, path);
+			//a run resumed without the cache still has to read past it
+			if (version >= 4 && in.readBoolean()) {
+				FitnessCache cache = sim.getCache() != null ? sim.getCache() : new FitnessCache(0);
+				cache.read(in, path);
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package AI;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import Entity.Player;
+
+/* Where the agents of a training run die, kept across generations to find the obstacles that hold training up.
+* For every tile column of the level it counts the deaths there by cause (see Player.DIED_ON_SPIKE etc.), in one flat array
+* indexed [column * NUM_DEATH_CAUSES + cause], so recording a death is an increment and never allocates.
+* It also counts per column the generations whose furthest death was there, which is where the run was stuck.
+*
+* Only simulated deaths are counted, agents whose fitness came from the fitness cache died the same way before and are not counted again.
+* A group of agents that die together counts as that many deaths. */
+public class DeathMap {
+	private int numCols;
+	private int tileSize;
+	private long[] deaths;			//[column * NUM_DEATH_CAUSES + cause]
+	private long[] totals;			//[column]
+	private int[] generations;		//[column], generations whose furthest death was in the column
+	private long maxTotal;
+
+	public DeathMap(int numCols, int tileSize) {
+		this.numCols = numCols;
+		this.tileSize = tileSize;
+		deaths = new long[numCols * Player.NUM_DEATH_CAUSES];
+		totals = new long[numCols];
+		generations = new int[numCols];
+	}
+
+	//count agents that died at x
+	public void record(int x, int cause, int count) {
+		int col = column(x);
+		deaths[col * Player.NUM_DEATH_CAUSES + cause] += count;
+		totals[col] += count;
+		if (totals[col] > maxTotal) maxTotal = totals[col];
+	}
+
+	//a generation is over, x is where its furthest death was
+	public void recordGeneration(double x) {
+		generations[column((int)x)]++;
+	}
+
+	private int column(int x) {return Math.max(0, Math.min(numCols - 1, x / tileSize));}
+
+	//one row per column anything died in
+	public void saveCsv(String path) throws IOException {
+		File file = new File(path);
+		if (file.getParentFile() != null) file.getParentFile().mkdirs();
+		try (PrintWriter writer = new PrintWriter(file)) {
+			StringBuilder header = new StringBuilder("column,x");
+			for (String cause : Player.DEATH_CAUSES) header.append(',').append(cause);
+			writer.println(header.append(",deaths,generations stuck"));
+			for (int col = 0; col < numCols; col++) {
+				if (totals[col] == 0 && generations[col] == 0) continue;
+				StringBuilder row = new StringBuilder(col + "," + col * tileSize);
+				for (int c = 0; c < Player.NUM_DEATH_CAUSES; c++) {
+					row.append(',').append(deaths[col * Player.NUM_DEATH_CAUSES + c]);
+				}
+				writer.println(row.append(',').append(totals[col]).append(',').append(generations[col]));
+			}
+		}
+	}
+
+	//the columns the most generations were stuck in, most first, e.g. "column 87 (12 generations, 4123 deaths, mostly spike)"
+	public String describeWorst(int n) {
+		StringBuilder s = new StringBuilder();
+		boolean[] listed = new boolean[numCols];
+		for (int i = 0; i < n; i++) {
+			int worst = -1;
+			for (int col = 0; col < numCols; col++) {
+				if (listed[col] || totals[col] == 0) continue;
+				if (worst == -1 || generations[col] > generations[worst] || generations[col] == generations[worst] && totals[col] > totals[worst]) worst = col;
+			}
+			if (worst == -1) break;
+			listed[worst] = true;
+			int cause = 0;
+			for (int c = 1; c < Player.NUM_DEATH_CAUSES; c++) {
+				if (deaths[worst * Player.NUM_DEATH_CAUSES + c] > deaths[worst * Player.NUM_DEATH_CAUSES + cause]) cause = c;
+			}
+			if (s.length() > 0) s.append(", ");
+			s.append(String.format("column %d (%d generations, %d deaths, mostly %s)", worst, generations[worst], totals[worst], Player.DEATH_CAUSES[cause]));
+		}
+		return s.length() > 0 ? s.toString() : "none";
+	}
+
+	//the counts in a checkpoint
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(numCols);
+		out.writeInt(Player.NUM_DEATH_CAUSES);
+		for (long d : deaths) out.writeLong(d);
+		for (int g : generations) out.writeInt(g);
+	}
+
+	void read(DataInputStream in, String source) throws IOException {
+		if (in.readInt() != numCols || in.readInt() != Player.NUM_DEATH_CAUSES) throw new IOException(source + " has deaths for a different level");
+		maxTotal = 0;
+		for (int col = 0; col < numCols; col++) {
+			totals[col] = 0;
+			for (int c = 0; c < Player.NUM_DEATH_CAUSES; c++) {
+				deaths[col * Player.NUM_DEATH_CAUSES + c] = in.readLong();
+				totals[col] += deaths[col * Player.NUM_DEATH_CAUSES + c];
+			}
+			maxTotal = Math.max(maxTotal, totals[col]);
+		}
+		for (int col = 0; col < numCols; col++) generations[col] = in.readInt();
+	}
+
+	//getters
+	public int getNumCols() {return numCols;}
+	public int getTileSize() {return tileSize;}
+	public long getDeaths(int col) {return totals[col];}
+	public long getDeaths(int col, int cause) {return deaths[col * Player.NUM_DEATH_CAUSES + cause];}
+	public int getGenerationsStuck(int col) {return generations[col];}
+	public long getMaxDeaths() {return maxTotal;}	//most deaths in any one column
+}
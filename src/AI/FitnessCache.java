@@ -0,0 +1,147 @@
+package AI;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import Entity.Player;
+
+/* Fitness of genomes that have already been simulated, so agents that come out of selection, crossover and mutation unchanged
+* (the elites, and children that were neither crossed over nor mutated) are not simulated again.
+*
+* A run is fully determined by the genes, the level, the physics version and the spawn point, so those make up the key.
+* Keys are the first 128 bits of a SHA-256 digest of them. Once the cache is full the least recently used entry is evicted.
+* Every entry keeps the agent's recorded input too, so a cached agent can still be shown as a ghost by replaying it. */
+public class FitnessCache {
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private final LinkedHashMap<Key, Entry> entries;
+	private final int capacity;
+	private long hits;
+	private long misses;
+
+	public FitnessCache(int capacity) {
+		this.capacity = capacity;
+		//access order, so the eldest entry is always the least recently used one
+		entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > FitnessCache.this.capacity;
+			}
+		};
+	}
+
+	public static Key key(double[] genes, String levelId, double spawnX, double spawnY) {
+		return key(genes, 0, genes.length, levelId, spawnX, spawnY, 0);
+	}
+
+	//start tells apart runs that begin at the same point in different states, such as from a WorldSnapshot, 0 for a fresh spawn
+	public static Key key(double[] genes, String levelId, double spawnX, double spawnY, long start) {
+		return key(genes, 0, genes.length, levelId, spawnX, spawnY, start);
+	}
+
+	//the genome at genes[offset, offset + numGenes), such as one agent's in a GenePool
+	public static Key key(double[] genes, int offset, int numGenes, String levelId, double spawnX, double spawnY, long start) {
+		byte[] level = levelId.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buf = ByteBuffer.allocate(numGenes * 8 + level.length + 28);
+		for (int g = offset; g < offset + numGenes; g++) buf.putDouble(genes[g]);
+		buf.put(level);
+		buf.putInt(Player.PHYSICS_VERSION);
+		buf.putDouble(spawnX);
+		buf.putDouble(spawnY);
+		buf.putLong(start);
+
+		MessageDigest sha;
+		try {
+			sha = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+		ByteBuffer digest = ByteBuffer.wrap(sha.digest(buf.array()));
+		return new Key(digest.getLong(), digest.getLong());
+	}
+
+	//returns null if the genome has not been simulated under these conditions
+	public Entry get(Key key) {
+		Entry entry = entries.get(key);
+		if (entry == null) misses++;
+		else hits++;
+		return entry;
+	}
+
+	public void put(Key key, double fitness, Replay replay) {
+		entries.put(key, new Entry(fitness, replay));
+	}
+
+	public void clear() {
+		entries.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	//the entries in a checkpoint, least recently used first so reading them back leaves them in the same order
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(entries.size());
+		for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+			out.writeLong(e.getKey().hi);
+			out.writeLong(e.getKey().lo);
+			out.writeDouble(e.getValue().fitness);
+			out.writeBoolean(e.getValue().replay != null);
+			if (e.getValue().replay != null) e.getValue().replay.write(out);
+		}
+	}
+
+	void read(DataInputStream in, String source) throws IOException {
+		int size = in.readInt();
+		if (size < 0) throw new IOException(source + " has a corrupt fitness cache");
+		entries.clear();
+		for (int i = 0; i < size; i++) {
+			Key key = new Key(in.readLong(), in.readLong());
+			double fitness = in.readDouble();
+			Replay replay = in.readBoolean() ? Replay.read(in, source) : null;
+			entries.put(key, new Entry(fitness, replay));
+		}
+	}
+
+	//getters
+	public int size() {return entries.size();}
+	public int getCapacity() {return capacity;}
+	public long getHits() {return hits;}
+	public long getMisses() {return misses;}
+
+	public static class Key {
+		private final long hi;
+		private final long lo;
+
+		private Key(long hi, long lo) {
+			this.hi = hi;
+			this.lo = lo;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key k = (Key)o;
+			return hi == k.hi && lo == k.lo;
+		}
+
+		public int hashCode() {return (int)(lo ^ (lo >>> 32));}
+	}
+
+	public static class Entry {
+		private final double fitness;
+		private final Replay replay;
+
+		private Entry(double fitness, Replay replay) {
+			this.fitness = fitness;
+			this.replay = replay;
+		}
+
+		public double getFitness() {return fitness;}
+		public Replay getReplay() {return replay;}
+	}
+}
@@ -0,0 +1,157 @@
+package AI;
+
+import JavaNN.Network.ActivationFunction.FuncTypes;
+import JavaNN.Network.NeuralNetwork;
+
+//inference-only multilayer perceptron that reads its parameters straight out of a flat double[]
+//the parameter layout is the same as JavaNN's NeuralNetwork.getParameters(): every layer's biases first, then every layer's weights,
+//so a chromosome's genes can be used as the parameter buffer directly without rebuilding any layers
+public final class FlatNetwork {
+	private final int[] architecture;
+	private final FuncTypes[] activations;	//activation of each non-input layer, activations[0] belongs to layer 1
+
+	//the sensors the inputs come from, see SensorTable, saved with the model so it is played with the same ones
+	private int viewDistance;
+	private boolean obstacleDistance;
+	private int[] sensingRows;				//null for the row players spawn in
+
+	private double[] params;
+	private int offset;						//index of the first parameter of this network inside params
+
+	private final int[] biasOffsets;		//per layer offsets relative to offset, index 0 is unused (input layer)
+	private final int[] weightOffsets;
+
+	//scratch buffers reused between evaluations, sized to the widest layer
+	private final double[] bufA;
+	private final double[] bufB;
+	private final double[] output;
+
+	public FlatNetwork(int[] architecture, FuncTypes[] activations) {
+		this(architecture, activations, new double[getNumParameters(architecture)], 0);
+	}
+
+	public FlatNetwork(int[] architecture, FuncTypes[] activations, double[] params, int offset) {
+		if (architecture.length < 2) throw new IllegalArgumentException("Network needs at least an input and an output layer");
+		if (activations.length != architecture.length - 1) throw new IllegalArgumentException("Need one activation per non-input layer");
+		this.architecture = architecture.clone();
+		this.activations = activations.clone();
+
+		biasOffsets = new int[architecture.length];
+		weightOffsets = new int[architecture.length];
+		int numBiases = 0;
+		int widest = 0;
+		for (int l = 1; l < architecture.length; l++) {
+			biasOffsets[l] = numBiases;
+			numBiases += architecture[l];
+		}
+		int numWeights = 0;
+		for (int l = 0; l < architecture.length; l++) {
+			if (l > 0) {
+				weightOffsets[l] = numBiases + numWeights;
+				numWeights += architecture[l] * architecture[l-1];
+			}
+			widest = Math.max(widest, architecture[l]);
+		}
+		bufA = new double[widest];
+		bufB = new double[widest];
+		output = new double[architecture[architecture.length-1]];
+		viewDistance = architecture[0] - 1;
+
+		setParameters(params, offset);
+	}
+
+	//builds a flat copy of a JavaNN network, using the activation types JavaNN was configured with
+	public static FlatNetwork fromNetwork(NeuralNetwork network) {
+		FlatNetwork flat = new FlatNetwork(network.getArchitecture(), defaultActivations(network.getArchitecture().length));
+		double[] p = network.getParameters();
+		System.arraycopy(p, 0, flat.params, flat.offset, p.length);
+		return flat;
+	}
+
+	public static FuncTypes[] defaultActivations(int numLayers) {
+		FuncTypes[] activations = new FuncTypes[numLayers - 1];
+		for (int l = 0; l < activations.length; l++) {
+			activations[l] = l == activations.length - 1 ? JavaNN.Util.Config.OUTPUT_LAYER_TYPE : JavaNN.Util.Config.HIDDEN_LAYER_TYPE;
+		}
+		return activations;
+	}
+
+	public static int getNumParameters(int[] architecture) {
+		int n = 0;
+		for (int l = 1; l < architecture.length; l++) {
+			n += architecture[l] * (architecture[l-1] + 1);
+		}
+		return n;
+	}
+
+	//point the network at a (possibly shared) parameter buffer, no copying is done
+	public void setParameters(double[] params, int offset) {
+		if (offset < 0 || offset + getNumParameters() > params.length) throw new IllegalArgumentException("Parameter buffer is too small for this architecture");
+		this.params = params;
+		this.offset = offset;
+	}
+
+	//evaluates the network, the returned array is owned by the network and overwritten on the next call
+	public double[] evaluate(double[] inputs) {
+		if (inputs.length != architecture[0]) throw new IllegalArgumentException("Dimension of inputs does not match the input layer");
+		double[] in = inputs;
+		double[] out = bufA;
+		for (int l = 1; l < architecture.length; l++) {
+			int n = architecture[l];
+			int prev = architecture[l-1];
+			int b = offset + biasOffsets[l];
+			int w = offset + weightOffsets[l];
+			FuncTypes func = activations[l-1];
+			if (l == architecture.length - 1) out = output;
+			for (int j = 0; j < n; j++) {
+				//accumulate in the same order as JavaNN's Layer.evaluate so both produce bit-identical outputs
+				double sum = 0;
+				for (int k = 0; k < prev; k++) {
+					sum += in[k] * params[w++];
+				}
+				out[j] = activate(sum + params[b + j], func);
+			}
+			in = out;
+			out = (out == bufA) ? bufB : bufA;
+		}
+		return output;
+	}
+
+	public static double activate(double x, FuncTypes func) {
+		switch (func) {
+			case RELU: return x > 0 ? x : 0;
+			case SIN: return Math.sin(x);
+			default: return 1 / (1 + Math.pow(Math.E, -x));	//same formula as JavaNN, Math.exp would differ in the last bit
+		}
+	}
+
+	//the inputs are sensed by a SensorTable with this view distance, obstacle distance and these rows, null for the row players spawn in
+	public void setSensorLayout(int viewDistance, boolean obstacleDistance, int[] sensingRows) {
+		int numInputs = SensorTable.numInputs(viewDistance, obstacleDistance, sensingRows != null ? sensingRows.length : 1);
+		if (numInputs != architecture[0]) throw new IllegalArgumentException("Sensors give " + numInputs + " inputs, the network takes " + architecture[0]);
+		this.viewDistance = viewDistance;
+		this.obstacleDistance = obstacleDistance;
+		this.sensingRows = sensingRows != null ? sensingRows.clone() : null;
+	}
+
+	public void setSensorLayout(SensorTable sensors) {
+		setSensorLayout(sensors.getViewDistance(), sensors.sensesObstacleDistance(), sensors.getRows());
+	}
+
+	//getters
+	public int getViewDistance() {return viewDistance;}
+	public boolean sensesObstacleDistance() {return obstacleDistance;}
+	public int[] getSensingRows() {return sensingRows != null ? sensingRows.clone() : null;}
+	public int[] getArchitecture() {return architecture.clone();}
+	public int getNumInputs() {return architecture[0];}
+	public FuncTypes[] getActivations() {return activations.clone();}
+	public int getNumParameters() {return getNumParameters(architecture);}
+	public double[] getParameterBuffer() {return params;}
+	public int getParameterOffset() {return offset;}
+
+	public double[] getParameters() {
+		double[] p = new double[getNumParameters()];
+		System.arraycopy(params, offset, p, 0, p.length);
+		return p;
+	}
+}
@@ -0,0 +1,69 @@
+package AI;
+
+import JavaNN.Network.NeuralNetwork;
+
+/* The genomes of a training population in one flat array, with the fitness of every agent.
+* Agent i's genes are [i * numGenes, (i + 1) * numGenes) of getGenes(), laid out like JavaNN's NeuralNetwork.getParameters(),
+* so FlatNetwork evaluates an agent straight out of the array and nothing is rebuilt when the genes change.
+* A JavaNN network is only made for an agent that gets saved, see toNetwork.
+*
+* GeneticAlgorithm writes the next generation into a second array and swaps it in, so hold on to the offset of an agent, not the array. */
+public class GenePool {
+	private final int size;
+	private final int numGenes;
+	private final int[] architecture;
+	private double[] genes;
+	private final double[] fitness;
+
+	public GenePool(int size, int[] architecture) {
+		this.size = size;
+		this.architecture = architecture.clone();
+		numGenes = FlatNetwork.getNumParameters(architecture);
+		genes = new double[size * numGenes];
+		fitness = new double[size];
+	}
+
+	//puts the next generation's genes in, returns the array they replace
+	double[] swapGenes(double[] next) {
+		double[] previous = genes;
+		genes = next;
+		return previous;
+	}
+
+	//agent with the highest fitness, the first one of them on a tie
+	public int getFittest() {
+		int best = 0;
+		for (int i = 1; i < size; i++) {
+			if (fitness[i] > fitness[best]) best = i;
+		}
+		return best;
+	}
+
+	//a JavaNN network with agent i's genes as its parameters, for saving
+	public NeuralNetwork toNetwork(int i) {
+		NeuralNetwork network = new NeuralNetwork(architecture);
+		network.setParameters(copyGenes(i));
+		return network;
+	}
+
+	public double[] copyGenes(int i) {
+		double[] copy = new double[numGenes];
+		System.arraycopy(genes, i * numGenes, copy, 0, numGenes);
+		return copy;
+	}
+
+	public void setGenes(int i, double[] g) {
+		if (g.length != numGenes) throw new IllegalArgumentException("Genome has " + g.length + " genes, the population's have " + numGenes);
+		System.arraycopy(g, 0, genes, i * numGenes, numGenes);
+	}
+
+	//getters / setters
+	public int getSize() {return size;}
+	public int getNumGenes() {return numGenes;}
+	public int[] getArchitecture() {return architecture.clone();}
+	public double[] getGenes() {return genes;}
+	public int offset(int i) {return i * numGenes;}
+	public double getFitness(int i) {return fitness[i];}
+	public void setFitness(int i, double f) {fitness[i] = f;}
+	public double[] getFitness() {return fitness;}
+}
@@ -0,0 +1,196 @@
+package AI;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/* The genetic algorithm of a training run, with its own settings and random numbers.
+* JavaNN's Population copies its probabilities and gene limits out of the static Config once, so every population in a program had to share them.
+* This does the steps of Population.selectParentsByRank, crossoverPopulation, mutatePopulation and updatePopulation
+* on a GenePool instead, so training runs side by side in one program can each be tuned differently, and large populations turn over quickly.
+*
+* Selection: the elites come first, fittest first, every other parent is the fitter of two agents picked at random.
+* That is a rank selection like JavaNN's (the fittest agent is about 2n times as likely to be picked as the least fit one) without sorting anything.
+* Crossover is uniform like JavaNN's, or whole arithmetic: both children become a blend of their parents weighted by crossoverCoefficient.
+* Mutation gives a gene a new random value like JavaNN's uniform mutation, or with gaussian adds normally distributed noise to it.
+*
+* The next generation is bred in chunks of CHUNK_SIZE agents in parallel, into a second gene array that is then swapped into the pool.
+* Random numbers come from the run's seed: the first population and every later generation get their own stream, split off the seed by number,
+* and every chunk its own stream split off that, so the same seed gives the same generations on any number of cores, whatever else runs alongside,
+* and a run resumed from a checkpoint carries on exactly as it would have. */
+public class GeneticAlgorithm {
+	public static final String UNIFORM = "uniform";
+	public static final String ARITHMETIC = "arithmetic";
+	public static final String RANDOM = "random";
+	public static final String GAUSSIAN = "gaussian";
+
+	private static final int CHUNK_SIZE = 1024;		//agents bred by one task, even so a pair is never split
+
+	private long seed;
+	private int numElites;
+	private double crossoverProbability;
+	private double mutationProbability;
+	private double geneMutationProbability;
+	private double geneLowerLimit;
+	private double geneUpperLimit;
+	private boolean arithmetic;
+	private double crossoverCoefficient;
+	private boolean gaussian;
+	private double mutationStdDev;
+
+	private double[] nextGenes;		//genes of the next generation, swapped with the pool's
+
+	public GeneticAlgorithm(RunConfig config) {
+		seed = config.seed;
+		numElites = config.numElites;
+		crossoverProbability = config.crossoverProbability;
+		mutationProbability = config.mutationProbability;
+		geneMutationProbability = config.geneMutationProbability;
+		geneLowerLimit = config.geneLowerLimit;
+		geneUpperLimit = config.geneUpperLimit;
+		crossoverCoefficient = config.crossoverCoefficient;
+		mutationStdDev = config.mutationStdDev;
+		if (config.crossover.equals(ARITHMETIC)) arithmetic = true;
+		else if (!config.crossover.equals(UNIFORM)) throw new IllegalArgumentException("Unknown crossover " + config.crossover);
+		if (config.mutation.equals(GAUSSIAN)) gaussian = true;
+		else if (!config.mutation.equals(RANDOM)) throw new IllegalArgumentException("Unknown mutation " + config.mutation);
+	}
+
+	//gives every agent random genes within the gene limits, the first generation
+	public void randomize(GenePool pool) {
+		long generationSeed = split(seed, 0);
+		double[] genes = pool.getGenes();
+		int numGenes = pool.getNumGenes();
+		IntStream.range(0, numChunks(pool.getSize())).parallel().forEach(c -> {
+			SplittableRandom random = new SplittableRandom(split(generationSeed, c));
+			int end = Math.min(pool.getSize(), (c + 1) * CHUNK_SIZE) * numGenes;
+			for (int g = c * CHUNK_SIZE * numGenes; g < end; g++) {
+				genes[g] = randomGene(random);
+			}
+		});
+	}
+
+	//replaces the genes of every agent with those of the given generation, fitness is reset to 0
+	//the elites come first, fittest first, the rest are picked by tournament, then crossed over in pairs and mutated
+	public void evolve(GenePool pool, int generation) {
+		int n = pool.getSize();
+		int numGenes = pool.getNumGenes();
+		if (nextGenes == null || nextGenes.length != pool.getGenes().length) nextGenes = new double[pool.getGenes().length];
+		int[] elites = fittest(pool.getFitness(), Math.min(numElites, n));
+
+		long generationSeed = split(seed, generation);
+		double[] genes = pool.getGenes();
+		double[] fitness = pool.getFitness();
+		double[] next = nextGenes;
+		IntStream.range(0, numChunks(n)).parallel().forEach(c -> {
+			SplittableRandom random = new SplittableRandom(split(generationSeed, c));
+			int from = c * CHUNK_SIZE;
+			int to = Math.min(n, from + CHUNK_SIZE);
+			for (int i = from; i < to; i++) {
+				int parent = i < elites.length ? elites[i] : tournament(fitness, random);
+				System.arraycopy(genes, parent * numGenes, next, i * numGenes, numGenes);
+			}
+			for (int i = from; i + 1 < to; i += 2) {
+				if (chance(random, crossoverProbability)) crossover(next, i * numGenes, (i + 1) * numGenes, numGenes, random);
+			}
+			for (int i = from; i < to; i++) {
+				if (chance(random, mutationProbability)) mutate(next, i * numGenes, numGenes, random);
+			}
+		});
+
+		nextGenes = pool.swapGenes(next);
+		for (int i = 0; i < n; i++) {
+			pool.setFitness(i, 0);
+		}
+	}
+
+	public long getSeed() {return seed;}
+	public void setSeed(long seed) {this.seed = seed;}
+
+	//seed of stream number n of a seed, the SplitMix64 mix so neighbouring streams are unrelated
+	public static long split(long seed, long n) {
+		long z = seed + (n + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int numChunks(int n) {return (n + CHUNK_SIZE - 1) / CHUNK_SIZE;}
+
+	//the k fittest agents, fittest first, the first one of them on a tie
+	//one pass that keeps the best k so far in order, most agents are not fitter than the last of them and cost one comparison
+	private static int[] fittest(double[] fitness, int k) {
+		int[] best = new int[k];
+		int found = 0;
+		for (int i = 0; i < fitness.length; i++) {
+			if (found == k && (k == 0 || fitness[i] <= fitness[best[k-1]])) continue;
+			int j = found < k ? found++ : k - 1;
+			for (; j > 0 && fitness[i] > fitness[best[j-1]]; j--) best[j] = best[j-1];
+			best[j] = i;
+		}
+		return best;
+	}
+
+	//the fitter of two random agents
+	private static int tournament(double[] fitness, SplittableRandom random) {
+		int a = random.nextInt(fitness.length);
+		int b = random.nextInt(fitness.length);
+		return fitness[b] > fitness[a] ? b : a;
+	}
+
+	//crosses over the genomes at a and b in place
+	private void crossover(double[] genes, int a, int b, int numGenes, SplittableRandom random) {
+		if (arithmetic) {
+			for (int g = 0; g < numGenes; g++) {
+				double x = genes[a + g];
+				genes[a + g] = crossoverCoefficient * x + (1 - crossoverCoefficient) * genes[b + g];
+				genes[b + g] = crossoverCoefficient * genes[b + g] + (1 - crossoverCoefficient) * x;
+			}
+			return;
+		}
+		//a coin flip per gene, 64 of them per random number
+		long coins = 0;
+		for (int g = 0; g < numGenes; g++) {
+			if ((g & 63) == 0) coins = random.nextLong();
+			if ((coins & 1) != 0) {
+				double x = genes[a + g];
+				genes[a + g] = genes[b + g];
+				genes[b + g] = x;
+			}
+			coins >>>= 1;
+		}
+	}
+
+	//mutates every gene of the genome at offset with geneMutationProbability
+	//the genes in between are skipped over by drawing how many there are, so only the mutated genes take a random number
+	private void mutate(double[] genes, int offset, int numGenes, SplittableRandom random) {
+		if (geneMutationProbability <= 0) return;
+		double logMiss = Math.log(1 - geneMutationProbability);
+		int g = 0;
+		while (true) {
+			if (geneMutationProbability < 1) {
+				double skip = Math.floor(Math.log(1 - random.nextDouble()) / logMiss);
+				if (skip >= numGenes - g) return;
+				g += (int)skip;
+			}
+			if (g >= numGenes) return;
+			int i = offset + g;
+			if (gaussian) genes[i] = Math.max(geneLowerLimit, Math.min(geneUpperLimit, genes[i] + nextGaussian(random) * mutationStdDev));
+			else genes[i] = randomGene(random);
+			g++;
+		}
+	}
+
+	//Marsaglia's polar method, SplittableRandom only has nextGaussian from Java 17 on
+	private static double nextGaussian(SplittableRandom random) {
+		double u, v, s;
+		do {
+			u = random.nextDouble() * 2 - 1;
+			v = random.nextDouble() * 2 - 1;
+			s = u * u + v * v;
+		} while (s >= 1 || s == 0);
+		return u * Math.sqrt(-2 * Math.log(s) / s);
+	}
+
+	private static boolean chance(SplittableRandom random, double p) {return random.nextDouble() <= p;}
+	private double randomGene(SplittableRandom random) {return random.nextDouble() * (geneUpperLimit - geneLowerLimit) + geneLowerLimit;}
+}
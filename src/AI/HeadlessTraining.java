@@ -0,0 +1,128 @@
+package AI;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import TileMap.LevelCompiler;
+import TileMap.TileMap;
+
+import JavaNN.Util.Config;
+
+//trains on a level without opening the game, as fast as the simulation runs
+//settings come from RunConfig.DEFAULT_PATH (or -config), the flags below override them
+//-maxticks and -stall end a generation early and -cutoff stops all but its leading survivors, see TrainingSimulation
+//-batch simulates the players with Entity.PlayerBatch, which moves them the same but faster for large populations
+//-curriculum starts generations from a snapshot before where the elite dies instead of from the spawn, see TrainingSimulation
+//-seed makes a run repeatable, -checkpoint n saves a Checkpoint every n generations and -resume carries on from one
+//the level GeneratedLevel trains on a course made up from RunConfig's generator.* settings, -newcourses makes a new one every generation
+//usage: java AI.HeadlessTraining [-resume checkpoint], followed by the arguments in USAGE
+public class HeadlessTraining {
+	public static final String USAGE = "[level map, e.g. TrainingLevel0Map] [generations] [-config file] [-population n] [-nodedup] [-nocache] [-batch] [-maxticks n] [-stall n] [-cutoff fraction] [-curriculum] [-newcourses] [-seed n] [-checkpoint generations]";
+	private static final List<String> VALUE_FLAGS = Arrays.asList("-config", "-population", "-maxticks", "-stall", "-cutoff", "-seed", "-checkpoint"); //flags followed by a value
+
+	public static void main(String[] args) throws Exception {
+		String resume = null;
+		ArrayList<String> trainingArgs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-resume") && i + 1 < args.length) resume = args[++i];
+			else trainingArgs.add(args[i]);
+		}
+		RunConfig config = parseArgs(trainingArgs.toArray(new String[0]));
+		if (config == null) {
+			System.out.println("usage: java AI.HeadlessTraining [-resume checkpoint] " + USAGE);
+			return;
+		}
+
+		Config.saveMostFitPerGen = false;
+		long setupStart = System.nanoTime();
+		TrainingSimulation sim = new TrainingSimulation(loadLevel(config.level), config);
+		if (resume != null) {
+			Checkpoint.load(resume, sim);
+			System.out.println("Resumed from generation " + sim.getGeneration() + " of " + resume);
+		}
+		System.out.printf("%s: %d agents, seed %d, set up in %.1f ms%n", config.level, sim.getPopulationSize(), sim.getSeed(), (System.nanoTime() - setupStart) / 1e6);
+
+		long start = System.nanoTime();
+		if (resume != null) sim.nextGeneration();
+		else sim.startGeneration();
+		while (true) {
+			int simulated = sim.getNumAlive();
+			WorldSnapshot from = sim.getStart();
+			long genStart = System.nanoTime();
+			int ticks = sim.runGeneration();
+			double seconds = (System.nanoTime() - genStart) / 1e9;
+			System.out.printf("gen %d: best %.0f, %d ticks, %d simulated, %d cached, %.1f ms, %.0f agent ticks/s, %d player updates%s%s%n",
+				sim.getGeneration(), sim.getBestFitness(), ticks, simulated, sim.getNumCached(), seconds * 1000,
+				sim.getAgentTicks() / seconds, sim.getPlayerTicks(),
+				from == null ? "" : ", from x " + from.getx() + " (tick " + from.getTick() + ")",
+				sim.getEndReason() == null ? "" : " (" + sim.getEndReason() + ")");
+			if (sim.hasWinner()) {
+				System.out.println("Finished training on generation " + sim.getGeneration() + ".");
+				break;
+			}
+			if (sim.getGeneration() + 1 >= config.generations) break;
+			if (config.checkpointInterval > 0 && (sim.getGeneration() + 1) % config.checkpointInterval == 0) {
+				Checkpoint.save(Checkpoint.path(config.level), sim);
+			}
+			sim.nextGeneration();
+		}
+		System.out.printf("%d generations in %.1f s%n", sim.getGeneration() + 1, (System.nanoTime() - start) / 1e9);
+		if (sim.getCache() != null) {
+			FitnessCache cache = sim.getCache();
+			System.out.println("fitness cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses, " + cache.size() + " entries");
+		}
+		System.out.println("stuck the longest at " + sim.getDeathMap().describeWorst(3));
+	}
+
+	//the run config for the arguments in USAGE, null if they are not understood
+	//agents spawn together with trajectory deduplication on unless the config turns it off or -nodedup is given, staggered spawns would make the elites miss the fitness cache
+	//the config is loaded first wherever -config is given, so the other flags always apply on top of it
+	public static RunConfig parseArgs(String[] args) throws IOException {
+		RunConfig defaults = new RunConfig();
+		defaults.dedup = true;
+		RunConfig config = null;
+		for (int i = 0; i < args.length; i++) {
+			if (VALUE_FLAGS.contains(args[i]) && i + 1 == args.length) return null;
+			if (args[i].equals("-config")) config = RunConfig.load(args[++i], defaults);
+		}
+		if (config == null) config = RunConfig.loadDefault(defaults);
+
+		String level = null;
+		int generations = -1;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-config")) i++;
+				else if (args[i].equals("-population")) config.populationSize = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-nodedup")) config.dedup = false;
+				else if (args[i].equals("-nocache")) config.cache = false;
+				else if (args[i].equals("-batch")) config.batchPhysics = true;
+				else if (args[i].equals("-maxticks")) config.maxTicks = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-stall")) config.stallTicks = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-cutoff")) config.cutoffFraction = Double.parseDouble(args[++i]);
+				else if (args[i].equals("-curriculum")) config.curriculum = true;
+				else if (args[i].equals("-newcourses")) config.newCourses = true;
+				else if (args[i].equals("-seed")) config.seed = Long.parseLong(args[++i]);
+				else if (args[i].equals("-checkpoint")) config.checkpointInterval = Integer.parseInt(args[++i]);
+				else if (args[i].startsWith("-")) return null;
+				else if (Character.isDigit(args[i].charAt(0))) generations = Integer.parseInt(args[i]);
+				else level = args[i];
+			}
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		if (level != null) config.level = level;
+		if (generations != -1) config.generations = generations;
+		if (config.newCourses && config.curriculum) return null;
+		return config;
+	}
+
+	//levels are looked up by the simple name of their TileMap class
+	public static TileMap loadLevel(String name) throws ReflectiveOperationException {
+		TileMap tileMap = LevelCompiler.create(name, 32);
+		tileMap.loadTiles();
+		LevelCompiler.load(tileMap);
+		return tileMap;
+	}
+}
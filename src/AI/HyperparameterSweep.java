@@ -0,0 +1,231 @@
+package AI;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/* Runs many headless training runs with different settings side by side, to find out which settings train fastest.
+* Each setting to vary is given as run config key=values, the values separated by |, e.g.
+*
+*	ga.mutationProbability=0.05|0.1|0.2 network.hidden=6,4|8 population.size=50|200
+*
+* By default every combination is run (a grid), with -random n, n combinations are drawn instead and keys may also be given a range
+* like ga.geneMutationProbability=0.1..1, sampled uniformly (whole numbers if both ends are).
+* Every combination runs -repeats times, each run on its own level and simulation with its own genetic algorithm, on a pool of -threads threads.
+* Runs don't save models or replays. Results are printed per run as they finish, summed up per combination at the end and written to -out as csv. */
+//usage: java AI.HyperparameterSweep, followed by the arguments in USAGE
+public class HyperparameterSweep {
+	public static final String USAGE = "[level map] [generations] [-config file] [-threads n] [-repeats r] [-random n] [-seed s] [-out file.csv] key=value|value|...";
+
+	//one training run of the sweep
+	private static class Job {
+		int id;
+		int combination;
+		String label;		//the swept settings
+		Properties properties;
+		int repeat;
+
+		boolean solved;
+		int generations;
+		double seconds;
+		double bestFitness;
+		String error;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String configPath = new File(RunConfig.DEFAULT_PATH).exists() ? RunConfig.DEFAULT_PATH : null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int repeats = 1;
+		int numRandom = 0;
+		Long seed = null;
+		String out = "sweep-results.csv";
+		String level = null;
+		String generations = null;
+		LinkedHashMap<String, String> space = new LinkedHashMap<String, String>();
+		boolean understood = true;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-config")) configPath = args[++i];
+			else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-repeats")) repeats = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-random")) numRandom = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("-out")) out = args[++i];
+			else if (args[i].startsWith("-")) understood = false;
+			else if (args[i].contains("=")) space.put(args[i].substring(0, args[i].indexOf('=')).trim(), args[i].substring(args[i].indexOf('=') + 1));
+			else if (Character.isDigit(args[i].charAt(0))) generations = args[i];
+			else level = args[i];
+		}
+		if (!understood || space.isEmpty() || threads < 1 || repeats < 1 || numRandom < 0) {
+			System.out.println("usage: java AI.HyperparameterSweep " + USAGE);
+			return;
+		}
+
+		Properties base = new Properties();
+		if (configPath != null) {
+			try (InputStream in = Files.newInputStream(Paths.get(configPath))) {
+				base.load(in);
+			}
+		}
+		if (level != null) base.setProperty("level", level);
+		if (generations != null) base.setProperty("training.generations", generations);
+		//like headless runs, agents spawn together unless the config says otherwise
+		if (!base.containsKey("training.dedup")) base.setProperty("training.dedup", "true");
+		//every run's seed is split off the sweep's, so a whole sweep can be repeated
+		if (seed == null) seed = base.containsKey("training.seed") ? Long.parseLong(base.getProperty("training.seed").trim()) : new Random().nextLong();
+		Random random = new Random(seed);
+
+		ArrayList<Map<String, String>> combinations = numRandom > 0 ? sample(space, numRandom, random) : grid(space);
+		ArrayList<Job> jobs = new ArrayList<Job>();
+		for (int c = 0; c < combinations.size(); c++) {
+			for (int r = 0; r < repeats; r++) {
+				Job job = new Job();
+				job.id = jobs.size();
+				job.combination = c;
+				job.label = combinations.get(c).toString();
+				job.properties = new Properties();
+				job.properties.putAll(base);
+				job.properties.setProperty("training.seed", Long.toString(GeneticAlgorithm.split(seed, job.id)));
+				job.properties.putAll(combinations.get(c));
+				job.repeat = r;
+				jobs.add(job);
+			}
+		}
+		System.out.println(combinations.size() + " combinations, " + jobs.size() + " runs on " + threads + " threads, seed " + seed);
+
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+			for (Job job : jobs) {
+				futures.add(pool.submit(() -> run(job)));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			pool.shutdown();
+		}
+		System.out.printf("Sweep ran for %.1f s%n", (System.nanoTime() - start) / 1e9);
+
+		printSummary(combinations, jobs, repeats);
+		try (PrintWriter writer = new PrintWriter(out)) {
+			writer.println("run,combination,repeat," + String.join(",", space.keySet()) + ",solved,generations,seconds,best fitness,error");
+			for (Job job : jobs) {
+				StringBuilder row = new StringBuilder(job.id + "," + job.combination + "," + job.repeat);
+				for (String key : space.keySet()) {
+					row.append(",\"").append(combinations.get(job.combination).get(key)).append('"');
+				}
+				row.append(String.format(",%b,%d,%.3f,%.0f,%s", job.solved, job.generations, job.seconds, job.bestFitness, job.error == null ? "" : "\"" + job.error.replace('"', '\'') + "\""));
+				writer.println(row);
+			}
+		}
+		System.out.println("Results written to " + out);
+	}
+
+	//trains until the level is finished or the generations run out
+	private static void run(Job job) {
+		long start = System.nanoTime();
+		try {
+			RunConfig config = RunConfig.fromProperties(job.properties, job.label);
+			TrainingSimulation sim = new TrainingSimulation(HeadlessTraining.loadLevel(config.level), config);
+			sim.setSaveModels(false);
+			sim.startGeneration();
+			while (true) {
+				sim.runGeneration();
+				job.bestFitness = Math.max(job.bestFitness, sim.getBestFitness());
+				if (sim.hasWinner()) {
+					job.solved = true;
+					break;
+				}
+				if (sim.getGeneration() + 1 >= config.generations) break;
+				sim.nextGeneration();
+			}
+			job.generations = sim.getGeneration() + 1;
+		} catch (Exception e) {
+			job.error = e.toString();
+		}
+		job.seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("run %d %s #%d: %s after %d generations, %.1f s, best %.0f", job.id, job.label, job.repeat,
+			job.error != null ? "failed (" + job.error + ")" : job.solved ? "solved" : "unsolved", job.generations, job.seconds, job.bestFitness));
+	}
+
+	//combinations sorted by how many of their runs solved the level, then by the mean generations those runs took
+	private static void printSummary(ArrayList<Map<String, String>> combinations, ArrayList<Job> jobs, int repeats) {
+		int n = combinations.size();
+		int[] solved = new int[n];
+		double[] generations = new double[n];
+		double[] seconds = new double[n];
+		double[] best = new double[n];
+		for (Job job : jobs) {
+			int c = job.combination;
+			if (job.solved) {
+				solved[c]++;
+				generations[c] += job.generations;
+			}
+			seconds[c] += job.seconds;
+			best[c] = Math.max(best[c], job.bestFitness);
+		}
+		ArrayList<Integer> order = new ArrayList<Integer>();
+		for (int c = 0; c < n; c++) order.add(c);
+		order.sort((a, b) -> solved[a] != solved[b] ? solved[b] - solved[a] : Double.compare(generations[a] / Math.max(1, solved[a]), generations[b] / Math.max(1, solved[b])));
+
+		System.out.println(String.format("%-8s %-10s %-12s %-10s %-10s %s", "rank", "solved", "mean gens", "mean s", "best", "settings"));
+		for (int i = 0; i < n; i++) {
+			int c = order.get(i);
+			System.out.println(String.format("%-8d %-10s %-12s %-10.1f %-10.0f %s", i + 1, solved[c] + "/" + repeats,
+				solved[c] == 0 ? "-" : String.format("%.1f", generations[c] / solved[c]), seconds[c] / repeats, best[c], combinations.get(c)));
+		}
+	}
+
+	//every combination of the values
+	private static ArrayList<Map<String, String>> grid(LinkedHashMap<String, String> space) {
+		ArrayList<Map<String, String>> combinations = new ArrayList<Map<String, String>>();
+		combinations.add(new LinkedHashMap<String, String>());
+		for (Map.Entry<String, String> setting : space.entrySet()) {
+			if (setting.getValue().contains("..")) throw new IllegalArgumentException(setting.getKey() + ": ranges need -random");
+			ArrayList<Map<String, String>> next = new ArrayList<Map<String, String>>();
+			for (Map<String, String> combination : combinations) {
+				for (String value : setting.getValue().split("\\|")) {
+					LinkedHashMap<String, String> extended = new LinkedHashMap<String, String>(combination);
+					extended.put(setting.getKey(), value.trim());
+					next.add(extended);
+				}
+			}
+			combinations = next;
+		}
+		return combinations;
+	}
+
+	//count combinations with every value drawn at random
+	private static ArrayList<Map<String, String>> sample(LinkedHashMap<String, String> space, int count, Random random) {
+		ArrayList<Map<String, String>> combinations = new ArrayList<Map<String, String>>();
+		for (int i = 0; i < count; i++) {
+			LinkedHashMap<String, String> combination = new LinkedHashMap<String, String>();
+			for (Map.Entry<String, String> setting : space.entrySet()) {
+				String[] values = setting.getValue().split("\\|");
+				String value = values[random.nextInt(values.length)].trim();
+				if (value.contains("..")) {
+					String lo = value.substring(0, value.indexOf("..")).trim();
+					String hi = value.substring(value.indexOf("..") + 2).trim();
+					if (isWhole(lo) && isWhole(hi)) value = Integer.toString(Integer.parseInt(lo) + random.nextInt(Integer.parseInt(hi) - Integer.parseInt(lo) + 1));
+					else value = String.format("%.4f", Double.parseDouble(lo) + random.nextDouble() * (Double.parseDouble(hi) - Double.parseDouble(lo)));
+				}
+				combination.put(setting.getKey(), value);
+			}
+			combinations.add(combination);
+		}
+		return combinations;
+	}
+
+	private static boolean isWhole(String s) {return s.matches("-?\\d+");}
+}
@@ -0,0 +1,248 @@
+package AI;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/* Island model training: several populations train on the same level in their own JVMs, and their best genomes migrate between them.
+* This is the coordinator. It starts one IslandWorker process per island and talks to them over localhost sockets.
+* After every migration interval each island sends its fittest genomes and waits for those of the island before it in a ring.
+* Training stops as soon as any island finishes the level, that island saves its model and replay like a headless run does.
+*
+* Messages (DataOutputStream, big-endian): a worker first sends its island number as an int, then at the end of every migration interval one of
+*	MIGRANTS	int generation, double best fitness, int number of migrants, int genes per migrant, then per migrant its double fitness and genes
+*	WINNER		int generation
+*	FINISHED	int generation, sent when the worker has run all of its generations
+* and the coordinator answers MIGRANTS with MIGRANTS (the immigrants, generation and best fitness of the island they come from) or STOP. */
+//usage: java AI.IslandTraining [-islands n] [-migrate generations] [-migrants k] [-jvm option]... followed by the arguments of HeadlessTraining
+public class IslandTraining {
+	public static final byte MIGRANTS = 1;
+	public static final byte WINNER = 2;
+	public static final byte FINISHED = 3;
+	public static final byte STOP = 4;
+	private static final byte LOST = -1;		//not sent, the connection to the island broke
+
+	private static final int CONNECT_TIMEOUT_MS = 60000;
+	private static final int STOP_TIMEOUT_MS = 1000;
+
+	//one island as the coordinator sees it
+	private static class Island {
+		int id;
+		Process process;
+		Socket socket;
+		DataInputStream in;
+		DataOutputStream out;
+		boolean alive = true;
+		Message pending;	//its migrants for the current interval, null until they arrive
+		double best;
+	}
+
+	//a message received from an island
+	static class Message {
+		Island from;
+		byte type;
+		int generation;
+		double best;
+		double[] fitness;
+		double[][] genes;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int numIslands = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+		int interval = 5;
+		int numMigrants = 2;
+		ArrayList<String> jvmOptions = new ArrayList<String>();
+		ArrayList<String> workerArgs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-islands")) numIslands = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-migrate")) interval = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-migrants")) numMigrants = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-jvm")) jvmOptions.add(args[++i]);
+			else workerArgs.add(args[i]);
+		}
+		RunConfig config = HeadlessTraining.parseArgs(workerArgs.toArray(new String[0]));
+		if (config == null || numIslands < 1 || interval < 1 || numMigrants < 0 || numMigrants > config.populationSize) {
+			System.out.println("usage: java AI.IslandTraining [-islands n] [-migrate generations] [-migrants k] [-jvm option]... " + HeadlessTraining.USAGE);
+			return;
+		}
+		System.out.println(numIslands + " islands of " + config.populationSize + " agents on " + config.level + ", " + numMigrants + " migrants every " + interval + " generations, seed " + config.seed);
+		//every island gets the same seed, and splits its own stream off it
+		workerArgs.add("-seed");
+		workerArgs.add(Long.toString(config.seed));
+
+		Island[] islands = new Island[numIslands];
+		LinkedBlockingQueue<Message> messages = new LinkedBlockingQueue<Message>();
+		long start = System.nanoTime();
+		try (ServerSocket server = new ServerSocket(0, numIslands, InetAddress.getLoopbackAddress())) {
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			for (int i = 0; i < numIslands; i++) {
+				ArrayList<String> command = new ArrayList<String>();
+				command.add(java);
+				command.add("-Djava.awt.headless=true");
+				command.addAll(jvmOptions);
+				command.add("-cp");
+				command.add(System.getProperty("java.class.path"));
+				command.add(IslandWorker.class.getName());
+				command.add(Integer.toString(server.getLocalPort()));
+				command.add(Integer.toString(i));
+				command.add(Integer.toString(interval));
+				command.add(Integer.toString(numMigrants));
+				command.addAll(workerArgs);
+				islands[i] = new Island();
+				islands[i].id = i;
+				islands[i].process = new ProcessBuilder(command).inheritIO().start();
+			}
+
+			//islands connect in whatever order they start up, and say which one they are
+			server.setSoTimeout(CONNECT_TIMEOUT_MS);
+			for (int i = 0; i < numIslands; i++) {
+				Socket socket = server.accept();
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				Island island = islands[in.readInt()];
+				island.socket = socket;
+				island.in = in;
+				island.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				Thread reader = new Thread(() -> readMessages(island, messages), "island-" + island.id);
+				reader.setDaemon(true);
+				reader.start();
+			}
+
+			coordinate(islands, messages);
+		} finally {
+			long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MS;
+			for (Island island : islands) {
+				if (island == null) continue;
+				if (island.socket != null) island.socket.close();
+				if (!island.process.waitFor(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) island.process.destroy();
+				island.process.waitFor();
+			}
+		}
+		System.out.printf("Island training ran for %.1f s%n", (System.nanoTime() - start) / 1e9);
+	}
+
+	//passes migrants around the ring until an island wins or every island is done
+	private static void coordinate(Island[] islands, LinkedBlockingQueue<Message> messages) throws Exception {
+		int numAlive = islands.length;
+		while (numAlive > 0) {
+			Message m = messages.take();
+			Island from = m.from;
+			if (m.type == WINNER) {
+				System.out.println("Island " + from.id + " finished the level on generation " + m.generation + ", stopping the other islands.");
+				for (Island island : islands) {
+					if (island.alive && island.pending != null) stop(island);
+				}
+				return;
+			}
+			if (m.type == MIGRANTS) {
+				from.pending = m;
+				from.best = m.best;
+			}
+			else {
+				if (m.type == FINISHED) System.out.println("Island " + from.id + " ran all of its generations.");
+				else System.out.println("Lost island " + from.id + ".");
+				from.alive = false;
+				numAlive--;
+			}
+
+			//once every island left has reported, each gets the migrants of the one before it
+			ArrayList<Island> ring = new ArrayList<Island>();
+			boolean everyoneReported = true;
+			for (Island island : islands) {
+				if (!island.alive) continue;
+				ring.add(island);
+				if (island.pending == null) everyoneReported = false;
+			}
+			if (!everyoneReported || ring.isEmpty()) continue;
+
+			double[] best = new double[islands.length];
+			for (int i = 0; i < ring.size(); i++) {
+				Island island = ring.get(i);
+				best[island.id] = island.best;
+				Message immigrants = ring.get((i + ring.size() - 1) % ring.size()).pending;
+				if (ring.size() == 1) immigrants = null;	//nobody to migrate from
+				try {
+					sendMigrants(island.out, immigrants);
+				} catch (IOException e) {
+					System.out.println("Could not send migrants to island " + island.id + ": " + e.getMessage());
+				}
+			}
+			System.out.println("Migrated after generation " + ring.get(0).pending.generation + ", best per island " + Arrays.toString(best));
+			for (Island island : ring) {
+				island.pending = null;
+			}
+		}
+	}
+
+	//islands waiting for migrants are told to stop, the others are shut down when the coordinator exits
+	private static void stop(Island island) {
+		try {
+			island.out.writeByte(STOP);
+			island.out.flush();
+		} catch (IOException e) {
+			//it is being shut down either way
+		}
+	}
+
+	private static void readMessages(Island island, LinkedBlockingQueue<Message> messages) {
+		while (true) {
+			Message m;
+			try {
+				m = readMessage(island.in);
+			} catch (IOException e) {
+				m = new Message();
+				m.type = LOST;
+			}
+			m.from = island;
+			messages.add(m);
+			if (m.type != MIGRANTS) return;
+		}
+	}
+
+	static Message readMessage(DataInputStream in) throws IOException {
+		Message m = new Message();
+		m.type = in.readByte();
+		if (m.type == STOP) return m;
+		m.generation = in.readInt();
+		if (m.type != MIGRANTS) return m;
+		m.best = in.readDouble();
+		int count = in.readInt();
+		int numGenes = in.readInt();
+		m.fitness = new double[count];
+		m.genes = new double[count][numGenes];
+		for (int i = 0; i < count; i++) {
+			m.fitness[i] = in.readDouble();
+			for (int g = 0; g < numGenes; g++) {
+				m.genes[i][g] = in.readDouble();
+			}
+		}
+		return m;
+	}
+
+	//writes a MIGRANTS message, with no migrants if m is null
+	static void sendMigrants(DataOutputStream out, Message m) throws IOException {
+		out.writeByte(MIGRANTS);
+		out.writeInt(m == null ? 0 : m.generation);
+		out.writeDouble(m == null ? 0 : m.best);
+		out.writeInt(m == null ? 0 : m.genes.length);
+		out.writeInt(m == null || m.genes.length == 0 ? 0 : m.genes[0].length);
+		if (m != null) {
+			for (int i = 0; i < m.genes.length; i++) {
+				out.writeDouble(m.fitness[i]);
+				for (double gene : m.genes[i]) {
+					out.writeDouble(gene);
+				}
+			}
+		}
+		out.flush();
+	}
+}
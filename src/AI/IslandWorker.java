@@ -0,0 +1,97 @@
+package AI;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+import JavaNN.Util.Config;
+
+//one island of IslandTraining, started by the coordinator: trains its own population headless and swaps its best genomes with the other islands
+//usage: java AI.IslandWorker port island migrationInterval numMigrants, followed by the arguments of HeadlessTraining
+public class IslandWorker {
+	public static void main(String[] args) throws Exception {
+		int port = Integer.parseInt(args[0]);
+		int island = Integer.parseInt(args[1]);
+		int interval = Integer.parseInt(args[2]);
+		int numMigrants = Integer.parseInt(args[3]);
+		RunConfig config = HeadlessTraining.parseArgs(Arrays.copyOfRange(args, 4, args.length));
+		config = config.withSeed(GeneticAlgorithm.split(config.seed, island));
+
+		Config.saveMostFitPerGen = false;
+		TrainingSimulation sim = new TrainingSimulation(HeadlessTraining.loadLevel(config.level), config);
+
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out.writeInt(island);
+			out.flush();
+
+			sim.startGeneration();
+			while (true) {
+				sim.runGeneration();
+				int generation = sim.getGeneration();
+				System.out.println(String.format("island %d gen %d: best %.0f", island, generation, sim.getBestFitness()));
+				if (sim.hasWinner()) {
+					System.out.println("Island " + island + " finished training on generation " + generation + ".");
+					out.writeByte(IslandTraining.WINNER);
+					out.writeInt(generation);
+					out.flush();
+					return;
+				}
+				if (generation + 1 >= config.generations) {
+					out.writeByte(IslandTraining.FINISHED);
+					out.writeInt(generation);
+					out.flush();
+					return;
+				}
+				if ((generation + 1) % interval == 0) {
+					IslandTraining.sendMigrants(out, emigrants(sim, numMigrants));
+					IslandTraining.Message reply = IslandTraining.readMessage(in);
+					if (reply.type == IslandTraining.STOP) return;
+					immigrate(sim, reply);
+				}
+				sim.nextGeneration();
+			}
+		}
+	}
+
+	//the fittest agents of the generation that just ran
+	private static IslandTraining.Message emigrants(TrainingSimulation sim, int numMigrants) {
+		GenePool pool = sim.getGenePool();
+		Integer[] agents = sortedByFitness(pool);
+		IslandTraining.Message m = new IslandTraining.Message();
+		m.generation = sim.getGeneration();
+		m.best = sim.getBestFitness();
+		m.fitness = new double[numMigrants];
+		m.genes = new double[numMigrants][];
+		for (int i = 0; i < numMigrants; i++) {
+			int agent = agents[agents.length - 1 - i];
+			m.fitness[i] = pool.getFitness(agent);
+			m.genes[i] = pool.copyGenes(agent);
+		}
+		return m;
+	}
+
+	//immigrants replace the least fit agents before selection, keeping the fitness they earned on their own island
+	private static void immigrate(TrainingSimulation sim, IslandTraining.Message m) {
+		GenePool pool = sim.getGenePool();
+		Integer[] agents = sortedByFitness(pool);
+		for (int i = 0; i < m.genes.length && i < agents.length; i++) {
+			if (pool.getNumGenes() != m.genes[i].length) throw new IllegalStateException("Islands have different network architectures");
+			pool.setGenes(agents[i], m.genes[i]);
+			pool.setFitness(agents[i], m.fitness[i]);
+		}
+	}
+
+	//the agents in order of fitness, least fit first
+	private static Integer[] sortedByFitness(GenePool pool) {
+		Integer[] agents = new Integer[pool.getSize()];
+		for (int i = 0; i < agents.length; i++) agents[i] = i;
+		Arrays.sort(agents, (a, b) -> Double.compare(pool.getFitness(a), pool.getFitness(b)));
+		return agents;
+	}
+}
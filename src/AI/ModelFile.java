@@ -0,0 +1,233 @@
+package AI;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import JavaNN.Network.ActivationFunction.FuncTypes;
+import JavaNN.Network.NeuralNetwork;
+
+/* Versioned binary model format (.gdnn), all values little-endian:
+*
+*	int		magic				"GDNN"
+*	short	version				FORMAT_VERSION
+*	byte	precision			8 for float64 parameters, 4 for float32
+*	byte	numLayers			L
+*	int[L]	architecture		neurons per layer, input layer first
+*	byte[L-1] activations		FuncTypes ordinal of every non-input layer
+*	byte	viewDistance		of the SensorTable the inputs come from
+*	byte	numSensingRows		R, 0 for the row players spawn in
+*	int[R]	sensingRows			tilemap rows it senses
+*	byte	sensorFlags			since version 3, bit 0 set if every row also gives its obstacle distance,
+*								the input layer must be SensorTable.numInputs of all three
+*	int		numParameters		must equal the count implied by the architecture
+*	int		checksum			CRC32 of the raw parameter bytes
+*	...		padding				zeros up to the next multiple of 8 bytes
+*	float64/float32[numParameters]	biases of every layer, then weights, in JavaNN's getParameters() order
+*
+* Loading maps the file and bulk-copies the parameters into a FlatNetwork, no per-value parsing or boxing is done.
+* Version 1 files have no sensor fields, their models were all trained on the spawn row with as many columns as they have inputs.
+* Version 2 files have no sensor flags, their models were all trained without obstacle distances. */
+public class ModelFile {
+	public static final int MAGIC = 0x4E4E4447;		//"GDNN" when read as little-endian bytes
+	public static final short FORMAT_VERSION = 3;
+
+	private static final int OBSTACLE_DISTANCE_FLAG = 1;
+	public static final String EXTENSION = ".gdnn";
+	public static final String LEGACY_EXTENSION = ".model";
+
+	private static final int DOUBLE_PRECISION = 8;
+	private static final int SINGLE_PRECISION = 4;
+
+	public static void save(String path, FlatNetwork network, boolean singlePrecision) throws IOException {
+		save(path, network.getArchitecture(), network.getActivations(), network.getViewDistance(), network.sensesObstacleDistance(), network.getSensingRows(),
+			network.getParameterBuffer(), network.getParameterOffset(), singlePrecision);
+	}
+
+	//a JavaNN network with the sensors it was trained with
+	public static void save(String path, NeuralNetwork network, SensorTable sensors, boolean singlePrecision) throws IOException {
+		FlatNetwork flat = FlatNetwork.fromNetwork(network);
+		flat.setSensorLayout(sensors);
+		save(path, flat, singlePrecision);
+	}
+
+	//sensingRows is null for the row players spawn in
+	public static void save(String path, int[] architecture, FuncTypes[] activations, int viewDistance, boolean obstacleDistance, int[] sensingRows,
+		double[] params, int offset, boolean singlePrecision) throws IOException {
+		int numParams = FlatNetwork.getNumParameters(architecture);
+		int precision = singlePrecision ? SINGLE_PRECISION : DOUBLE_PRECISION;
+		int numRows = sensingRows != null ? sensingRows.length : 0;
+		if (SensorTable.numInputs(viewDistance, obstacleDistance, Math.max(numRows, 1)) != architecture[0]) throw new IOException("The sensors of " + path + " do not match its input layer");
+		int headerSize = headerSize(architecture.length, sensorBytes(FORMAT_VERSION, numRows));
+
+		ByteBuffer buf = ByteBuffer.allocate(headerSize + numParams * precision).order(ByteOrder.LITTLE_ENDIAN);
+		buf.position(headerSize);
+		for (int i = 0; i < numParams; i++) {
+			if (singlePrecision) buf.putFloat((float)params[offset + i]);
+			else buf.putDouble(params[offset + i]);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(buf.array(), headerSize, numParams * precision);
+
+		buf.position(0);
+		buf.putInt(MAGIC);
+		buf.putShort(FORMAT_VERSION);
+		buf.put((byte)precision);
+		buf.put((byte)architecture.length);
+		for (int n : architecture) buf.putInt(n);
+		for (FuncTypes f : activations) buf.put((byte)f.ordinal());
+		buf.put((byte)viewDistance);
+		buf.put((byte)numRows);
+		for (int r = 0; r < numRows; r++) buf.putInt(sensingRows[r]);
+		buf.put((byte)(obstacleDistance ? OBSTACLE_DISTANCE_FLAG : 0));
+		buf.putInt(numParams);
+		buf.putInt((int)crc.getValue());
+
+		File file = new File(path);
+		if (file.getParentFile() != null) file.getParentFile().mkdirs();
+		Files.write(file.toPath(), buf.array());
+	}
+
+	public static FlatNetwork load(String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+			return read(mapped, path);
+		}
+	}
+
+	private static FlatNetwork read(ByteBuffer buf, String path) throws IOException {
+		if (buf.remaining() < 8 || buf.getInt(0) != MAGIC) throw new IOException(path + " is not a " + EXTENSION + " model");
+		short version = buf.getShort(4);
+		if (version < 1 || version > FORMAT_VERSION) throw new IOException(path + " has unsupported model version " + version);
+		int precision = buf.get(6);
+		if (precision != DOUBLE_PRECISION && precision != SINGLE_PRECISION) throw new IOException(path + " has unknown parameter precision " + precision);
+		int numLayers = buf.get(7);
+		if (numLayers < 2) throw new IOException(path + " declares " + numLayers + " layers");
+
+		if (buf.limit() < headerSize(numLayers, sensorBytes(version, 0))) throw new IOException(path + " is truncated");
+
+		int pos = 8;
+		int[] architecture = new int[numLayers];
+		for (int l = 0; l < numLayers; l++, pos += 4) {
+			architecture[l] = buf.getInt(pos);
+			if (architecture[l] <= 0) throw new IOException(path + " has an empty layer " + l);
+		}
+		FuncTypes[] types = FuncTypes.values();
+		FuncTypes[] activations = new FuncTypes[numLayers - 1];
+		for (int l = 0; l < activations.length; l++, pos++) {
+			int ordinal = buf.get(pos);
+			if (ordinal < 0 || ordinal >= types.length) throw new IOException(path + " has unknown activation type " + ordinal);
+			activations[l] = types[ordinal];
+		}
+		int viewDistance = architecture[0] - 1;
+		boolean obstacleDistance = false;
+		int[] sensingRows = null;
+		int numRows = 0;
+		if (version >= 2) {
+			viewDistance = buf.get(pos);
+			numRows = buf.get(pos + 1);
+			pos += 2;
+			if (viewDistance < 1 || numRows < 0) throw new IOException(path + " has a broken sensor layout");
+			if (buf.limit() < headerSize(numLayers, sensorBytes(version, numRows))) throw new IOException(path + " is truncated");
+			if (numRows > 0) {
+				sensingRows = new int[numRows];
+				for (int r = 0; r < numRows; r++, pos += 4) sensingRows[r] = buf.getInt(pos);
+			}
+			if (version >= 3) obstacleDistance = (buf.get(pos++) & OBSTACLE_DISTANCE_FLAG) != 0;
+			int numInputs = SensorTable.numInputs(viewDistance, obstacleDistance, Math.max(numRows, 1));
+			if (numInputs != architecture[0]) throw new IOException(path + " senses " + numInputs + " inputs, its network takes " + architecture[0]);
+		}
+		int headerSize = headerSize(numLayers, sensorBytes(version, numRows));
+		int numParams = buf.getInt(pos);
+		int checksum = buf.getInt(pos + 4);
+		if (numParams != FlatNetwork.getNumParameters(architecture)) throw new IOException(path + " parameter count does not match its architecture");
+		if (buf.limit() != headerSize + numParams * precision) throw new IOException(path + " has the wrong size for its parameters");
+
+		ByteBuffer data = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		data.position(headerSize);
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		if ((int)crc.getValue() != checksum) throw new IOException(path + " failed its checksum");
+
+		FlatNetwork network = new FlatNetwork(architecture, activations);
+		network.setSensorLayout(viewDistance, obstacleDistance, sensingRows);
+		double[] params = network.getParameterBuffer();
+		data.position(headerSize);
+		if (precision == DOUBLE_PRECISION) {
+			data.asDoubleBuffer().get(params, 0, numParams);
+		}
+		else {
+			java.nio.FloatBuffer floats = data.asFloatBuffer();
+			for (int i = 0; i < numParams; i++) params[i] = floats.get(i);
+		}
+		return network;
+	}
+
+	//header is padded so the parameters start 8-byte aligned
+	private static int headerSize(int numLayers, int sensorBytes) {
+		int size = 8 + 4 * numLayers + (numLayers - 1) + sensorBytes + 8;
+		return (size + 7) & ~7;
+	}
+
+	//size of the sensor fields in a header of the given version
+	private static int sensorBytes(int version, int numRows) {
+		if (version < 2) return 0;
+		return 2 + 4 * numRows + (version >= 3 ? 1 : 0);
+	}
+
+	//converts a model saved by NeuralNetwork.saveToFile, assuming the activation types JavaNN is currently configured with
+	public static FlatNetwork convert(String legacyPath, String outPath, boolean singlePrecision) throws IOException {
+		FlatNetwork network = FlatNetwork.fromNetwork(NeuralNetwork.loadFromFile(legacyPath));
+		save(outPath, network, singlePrecision);
+		return network;
+	}
+
+	//loads a model by path, converting a legacy .model file next to it first if the .gdnn version does not exist yet
+	public static FlatNetwork loadOrConvert(String path) throws IOException {
+		if (path.endsWith(LEGACY_EXTENSION)) path = path.substring(0, path.length() - LEGACY_EXTENSION.length()) + EXTENSION;
+		if (!new File(path).exists()) {
+			String legacy = path.substring(0, path.length() - EXTENSION.length()) + LEGACY_EXTENSION;
+			if (!new File(legacy).exists()) throw new IOException("No model found at " + path);
+			System.out.println("Converting " + legacy + " to " + path);
+			return convert(legacy, path, false);
+		}
+		return load(path);
+	}
+
+	//usage: java AI.ModelFile [-f32] <model or directory>...
+	//converts legacy .model files to .gdnn next to the originals
+	public static void main(String[] args) throws IOException {
+		boolean singlePrecision = false;
+		for (String arg : args) {
+			if (arg.equals("-f32")) {
+				singlePrecision = true;
+				continue;
+			}
+			Path p = Paths.get(arg);
+			if (Files.isDirectory(p)) {
+				File[] files = p.toFile().listFiles((dir, name) -> name.endsWith(LEGACY_EXTENSION));
+				if (files == null) continue;
+				for (File f : files) convertAndReport(f.getPath(), singlePrecision);
+			}
+			else {
+				convertAndReport(arg, singlePrecision);
+			}
+		}
+	}
+
+	private static void convertAndReport(String legacyPath, boolean singlePrecision) throws IOException {
+		String outPath = legacyPath.substring(0, legacyPath.length() - LEGACY_EXTENSION.length()) + EXTENSION;
+		FlatNetwork network = convert(legacyPath, outPath, singlePrecision);
+		System.out.println(legacyPath + " -> " + outPath + " (" + network.getNumParameters() + " parameters)");
+	}
+}
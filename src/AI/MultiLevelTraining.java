@@ -0,0 +1,212 @@
+package AI;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import JavaNN.Util.Config;
+import TileMap.TileMap;
+
+/* Trains one population on several levels at once, headless, so its winner has to play all of them instead of learning one by heart.
+* Every genome is played on every level, and its fitness is the mean (or with -fitness min, the worst) of its progress on each,
+* the x it got to as a fraction of the level's end, so a long level counts no more than a short one.
+* The genetic algorithm then breeds the next generation from that one fitness, and the run is won by a genome that finishes every level.
+*
+* Scheduling: the population is cut into chunks of CHUNK_SIZE agents, and every (level, chunk) pair is a task on a thread pool sized to the cores,
+* with a TrainingSimulation of its own that is kept from one generation to the next, so its fitness cache still works.
+* The tasks are handed out longest level first, so the threads that get the short ones pick up what is left
+* and no thread sits idle while another plays out a long level. The chunks are the same on any number of threads, so a seed trains the same on any machine.
+* A run that finishes a level is scored and plays on in its task, and the elite cut-off is off, since a task only sees part of the population. */
+//usage: java AI.MultiLevelTraining [-levels Level1Map,...] [-threads n] [-fitness mean|min], followed by the arguments in HeadlessTraining.USAGE except the level
+public class MultiLevelTraining {
+	public static final String MEAN = "mean";
+	public static final String MIN = "min";
+	public static final String WINNER_PATH = "ai_models/multilevel-win" + ModelFile.EXTENSION;
+
+	private static final int CHUNK_SIZE = 128;		//agents of a task, enough for trajectory deduplication to share their early moves
+
+	private String[] levels;
+	private boolean min;
+	private GenePool pool;
+	private GeneticAlgorithm geneticAlgorithm;
+	private ArrayList<Task> tasks;		//longest level first
+	private double[][] progress;		//[level][agent], fraction of the level the agent got through this generation
+	private int generation;
+
+	//the simulation of one chunk of the population on one level
+	private static class Task implements Callable<Task> {
+		int level;
+		int from;
+		TrainingSimulation sim;
+		double levelEnd;
+
+		public Task call() {
+			sim.startGeneration();
+			sim.runGeneration();
+			return this;
+		}
+	}
+
+	public MultiLevelTraining(String[] levels, RunConfig config, String fitness) throws ReflectiveOperationException {
+		if (!fitness.equals(MEAN) && !fitness.equals(MIN)) throw new IllegalArgumentException("Unknown level fitness " + fitness);
+		if (config.curriculum) throw new IllegalArgumentException("The curriculum can't be used with several levels");
+		this.levels = levels.clone();
+		min = fitness.equals(MIN);
+
+		//the tasks only score the genes they are given, breeding happens here
+		RunConfig taskConfig = config.withSeed(config.seed);
+		taskConfig.cutoffFraction = -1;
+		tasks = new ArrayList<Task>();
+		int[] architecture = null;
+		for (int l = 0; l < levels.length; l++) {
+			for (int from = 0; from < config.populationSize; from += CHUNK_SIZE) {
+				Task task = new Task();
+				task.level = l;
+				task.from = from;
+				taskConfig.populationSize = Math.min(CHUNK_SIZE, config.populationSize - from);
+				taskConfig.numElites = Math.min(config.numElites, taskConfig.populationSize);
+				TileMap tileMap = HeadlessTraining.loadLevel(levels[l]);
+				task.sim = new TrainingSimulation(tileMap, taskConfig);
+				task.sim.setSaveModels(false);
+				task.sim.setStopAtWinner(false);
+				task.levelEnd = task.sim.getLevelEnd();
+				int[] a = task.sim.getGenePool().getArchitecture();
+				if (architecture != null && !Arrays.equals(a, architecture)) throw new IllegalArgumentException(levels[l] + " has different sensor inputs from " + levels[0]);
+				architecture = a;
+				tasks.add(task);
+			}
+		}
+		tasks.sort((a, b) -> Double.compare(b.levelEnd, a.levelEnd));
+
+		pool = new GenePool(config.populationSize, architecture);
+		geneticAlgorithm = new GeneticAlgorithm(config);
+		geneticAlgorithm.randomize(pool);
+		progress = new double[levels.length][config.populationSize];
+	}
+
+	//plays every agent on every level on the thread pool, and sets its fitness from its progress
+	public void evaluate(ExecutorService threads) throws Exception {
+		double[] genes = pool.getGenes();
+		int numGenes = pool.getNumGenes();
+		for (Task task : tasks) {
+			GenePool chunk = task.sim.getGenePool();
+			System.arraycopy(genes, pool.offset(task.from), chunk.getGenes(), 0, chunk.getSize() * numGenes);
+			task.sim.setGeneration(generation);
+		}
+		for (Future<Task> future : threads.invokeAll(tasks)) {
+			Task task = future.get();
+			GenePool chunk = task.sim.getGenePool();
+			for (int i = 0; i < chunk.getSize(); i++) {
+				progress[task.level][task.from + i] = Math.max(0, Math.min(1, chunk.getFitness(i) / task.levelEnd));
+			}
+		}
+		for (int a = 0; a < pool.getSize(); a++) {
+			pool.setFitness(a, getFitness(a));
+		}
+	}
+
+	//mean or least progress of agent a over the levels
+	private double getFitness(int a) {
+		double f = min ? 1 : 0;
+		for (int l = 0; l < levels.length; l++) {
+			if (min) f = Math.min(f, progress[l][a]);
+			else f += progress[l][a] / levels.length;
+		}
+		return f;
+	}
+
+	public void nextGeneration() {
+		generation++;
+		geneticAlgorithm.evolve(pool, generation);
+	}
+
+	//an agent that finished every level this generation, -1 if none did
+	public int getWinner() {
+		for (int a = 0; a < pool.getSize(); a++) {
+			boolean finished = true;
+			for (int l = 0; l < levels.length && finished; l++) finished = progress[l][a] >= 1;
+			if (finished) return a;
+		}
+		return -1;
+	}
+
+	//best progress any agent made on level l this generation
+	public double getBestProgress(int l) {
+		double best = 0;
+		for (double p : progress[l]) best = Math.max(best, p);
+		return best;
+	}
+
+	//getters
+	public GenePool getGenePool() {return pool;}
+	public int getGeneration() {return generation;}
+	public int getNumTasks() {return tasks.size();}
+
+	public static void main(String[] args) throws Exception {
+		String[] levels = AllLevelsTraining.LEVELS;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String fitness = MEAN;
+		boolean understood = true;
+		ArrayList<String> trainingArgs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			boolean hasValue = i + 1 < args.length;
+			if (args[i].equals("-levels") && hasValue) levels = AllLevelsTraining.parseLevels(args[++i]);
+			else if (args[i].equals("-threads") && hasValue) threads = AllLevelsTraining.parseCount(args[++i]);
+			else if (args[i].equals("-fitness") && hasValue) fitness = args[++i];
+			else if (args[i].equals("-levels") || args[i].equals("-threads") || args[i].equals("-fitness")) understood = false;
+			else trainingArgs.add(args[i]);
+		}
+		RunConfig config = HeadlessTraining.parseArgs(trainingArgs.toArray(new String[0]));
+		if (!understood || levels == null || config == null || threads < 1 || config.curriculum || !fitness.equals(MEAN) && !fitness.equals(MIN)) {
+			System.out.println("usage: java AI.MultiLevelTraining [-levels Level1Map,...] [-threads n] [-fitness mean|min] " + HeadlessTraining.USAGE);
+			return;
+		}
+
+		Config.saveMostFitPerGen = false;
+		long setupStart = System.nanoTime();
+		MultiLevelTraining training = new MultiLevelTraining(levels, config, fitness);
+		System.out.printf("Training %s with %d agents scored by %s progress, %d tasks on %d threads, seed %d, set up in %.1f ms%n", Arrays.toString(levels),
+			config.populationSize, fitness, training.getNumTasks(), threads, config.seed, (System.nanoTime() - setupStart) / 1e6);
+
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			while (true) {
+				long genStart = System.nanoTime();
+				training.evaluate(pool);
+				GenePool genes = training.getGenePool();
+				StringBuilder best = new StringBuilder();
+				for (int l = 0; l < levels.length; l++) {
+					best.append(String.format(", %s %.0f%%", levels[l], 100 * training.getBestProgress(l)));
+				}
+				System.out.printf("gen %d: best %.3f%s, %.1f ms%n", training.getGeneration(), genes.getFitness(genes.getFittest()), best, (System.nanoTime() - genStart) / 1e6);
+				int winner = training.getWinner();
+				if (winner != -1) {
+					System.out.println("Finished every level on generation " + training.getGeneration() + ".");
+					if (Config.saveWinner) training.saveWinner(winner);
+					break;
+				}
+				if (training.getGeneration() + 1 >= config.generations) break;
+				training.nextGeneration();
+			}
+		} finally {
+			pool.shutdown();
+		}
+		System.out.printf("%d generations in %.1f s%n", training.getGeneration() + 1, (System.nanoTime() - start) / 1e9);
+	}
+
+	//every level is sensed with the same rows and view distance, so any task's sensors will do
+	private void saveWinner(int winner) {
+		try {
+			ModelFile.save(WINNER_PATH, pool.toNetwork(winner), tasks.get(0).sim.getSensors(), false);
+			System.out.println("Saved model to " + WINNER_PATH);
+		} catch (IOException e) {
+			System.out.println("Error occured while creating model save file.");
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package AI;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import Entity.Player;
+
+/* A recorded run: the jump input of one player for every tick, plus what is needed to play it back.
+* Since the game's physics only depend on the per-tick jump input, replaying the bits from the same spawn reproduces the run exactly.
+*
+* The input is stored run-length encoded: alternating runs of released/held ticks, starting with released,
+* each run length written as an unsigned LEB128 varint. A typical run is a few hundred bytes.
+*
+* File layout (big-endian, DataOutputStream): int magic "GDRP", short format version, int physics version,
+* UTF level id, double spawn x, double spawn y, int number of ticks, int data length, data. */
+public final class Replay {
+	public static final int MAGIC = 0x47445250;	//"GDRP"
+	public static final short FORMAT_VERSION = 1;
+	public static final String EXTENSION = ".replay";
+	public static final String REPLAY_DIR = "replays";
+
+	private String levelId;
+	private double spawnX;
+	private double spawnY;
+	private int physicsVersion;
+
+	private byte[] data;
+	private int dataLength;
+	private int numTicks;
+
+	//run currently being recorded, only written to data when the input changes
+	private boolean currentBit;
+	private int currentRun;
+
+	public Replay(String levelId, double spawnX, double spawnY) {
+		this.levelId = levelId;
+		this.spawnX = spawnX;
+		this.spawnY = spawnY;
+		physicsVersion = Player.PHYSICS_VERSION;
+		data = new byte[64];
+		clear();
+	}
+
+	//start over, optionally from a different spawn
+	public void clear() {
+		dataLength = 0;
+		numTicks = 0;
+		currentBit = false;
+		currentRun = 0;
+	}
+
+	public void clear(double spawnX, double spawnY) {
+		this.spawnX = spawnX;
+		this.spawnY = spawnY;
+		clear();
+	}
+
+	//start over from the spawn of another run, with its input already recorded
+	public void clear(Replay prefix) {
+		clear(prefix.spawnX, prefix.spawnY);
+		Reader reader = prefix.reader();
+		while (reader.hasNext()) record(reader.next());
+	}
+
+	//records the jump input of one tick
+	public void record(boolean jump) {
+		if (jump != currentBit) {
+			writeVarint(currentRun);
+			currentBit = jump;
+			currentRun = 0;
+		}
+		currentRun++;
+		numTicks++;
+	}
+
+	private void writeVarint(int v) {
+		if (dataLength + 5 > data.length) data = Arrays.copyOf(data, data.length * 2);
+		while ((v & ~0x7F) != 0) {
+			data[dataLength++] = (byte)((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		data[dataLength++] = (byte)v;
+	}
+
+	//encoded input including the run still being recorded
+	private byte[] encode() {
+		int savedLength = dataLength;
+		if (currentRun > 0) writeVarint(currentRun);
+		byte[] out = Arrays.copyOf(data, dataLength);
+		dataLength = savedLength;
+		return out;
+	}
+
+	//getters
+	public String getLevelId() {return levelId;}
+	public double getSpawnX() {return spawnX;}
+	public double getSpawnY() {return spawnY;}
+	public int getPhysicsVersion() {return physicsVersion;}
+	public int getNumTicks() {return numTicks;}
+	public int getEncodedSize() {return encode().length;}
+
+	public boolean isPlayable() {return physicsVersion == Player.PHYSICS_VERSION;}
+
+	//a playback-only copy of the input recorded so far
+	public Replay copy() {
+		Replay replay = new Replay(levelId, spawnX, spawnY);
+		replay.physicsVersion = physicsVersion;
+		replay.data = encode();
+		replay.dataLength = replay.data.length;
+		replay.numTicks = numTicks;
+		return replay;
+	}
+
+	//an independent playback position, several readers can play the same replay at once
+	public Reader reader() {return new Reader(encode(), numTicks);}
+
+	public static class Reader {
+		private final byte[] runs;
+		private final int numTicks;
+		private int pos;
+		private int tick;
+		private boolean bit;
+		private int remaining;		//ticks left in the current run
+
+		private Reader(byte[] runs, int numTicks) {
+			this.runs = runs;
+			this.numTicks = numTicks;
+			reset();
+		}
+
+		public void reset() {
+			pos = 0;
+			tick = 0;
+			bit = true;		//flipped to released when the first run is read
+			remaining = 0;
+		}
+
+		public boolean hasNext() {return tick < numTicks;}
+		public int getTick() {return tick;}
+		public int getNumTicks() {return numTicks;}
+
+		//input of the next tick, released once the recording has run out
+		public boolean next() {
+			if (tick >= numTicks) return false;
+			while (remaining == 0) {
+				remaining = readVarint();
+				bit = !bit;
+			}
+			remaining--;
+			tick++;
+			return bit;
+		}
+
+		private int readVarint() {
+			int v = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = runs[pos++];
+				v |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return v;
+		}
+	}
+
+	public void save(String path) throws IOException {
+		File file = new File(path);
+		if (file.getParentFile() != null) file.getParentFile().mkdirs();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+			write(out);
+		}
+	}
+
+	public static Replay load(String path) throws IOException {
+		try (InputStream in = Files.newInputStream(Paths.get(path))) {
+			return read(new DataInputStream(new BufferedInputStream(in)), path);
+		}
+	}
+
+	//the file layout, also used to store runs inside other files such as checkpoints
+	void write(DataOutputStream out) throws IOException {
+		byte[] runs = encode();
+		out.writeInt(MAGIC);
+		out.writeShort(FORMAT_VERSION);
+		out.writeInt(physicsVersion);
+		out.writeUTF(levelId);
+		out.writeDouble(spawnX);
+		out.writeDouble(spawnY);
+		out.writeInt(numTicks);
+		out.writeInt(runs.length);
+		out.write(runs);
+	}
+
+	//source names the file in error messages
+	static Replay read(DataInputStream din, String source) throws IOException {
+		if (din.readInt() != MAGIC) throw new IOException(source + " is not a replay");
+		short version = din.readShort();
+		if (version != FORMAT_VERSION) throw new IOException(source + " has unsupported replay version " + version);
+		int physicsVersion = din.readInt();
+		Replay replay = new Replay(din.readUTF(), din.readDouble(), din.readDouble());
+		replay.physicsVersion = physicsVersion;
+		replay.numTicks = din.readInt();
+		int length = din.readInt();
+		if (length < 0) throw new IOException(source + " is corrupt");
+		//loaded replays are for playback only, every run is already finished
+		replay.data = new byte[length];
+		din.readFully(replay.data);
+		replay.dataLength = length;
+		return replay;
+	}
+
+	//saves the run as the latest winner for its level and keeps a timestamped copy in the archive
+	public void saveWinner() {
+		try {
+			save(winnerPath(levelId));
+			save(REPLAY_DIR + "/archive/" + levelId + "-" + System.currentTimeMillis() + EXTENSION);
+			System.out.println("Saved replay of " + numTicks + " ticks (" + getEncodedSize() + " bytes) to " + winnerPath(levelId));
+		} catch (IOException e) {
+			System.out.println("Error occured while saving replay.");
+			e.printStackTrace();
+		}
+	}
+
+	//saves a run of AI mode as the latest one for its level, apart from training's winners and not archived
+	public void saveAIRun() {
+		try {
+			save(aiRunPath(levelId));
+			System.out.println("Saved replay of " + numTicks + " ticks (" + getEncodedSize() + " bytes) to " + aiRunPath(levelId));
+		} catch (IOException e) {
+			System.out.println("Error occured while saving replay.");
+			e.printStackTrace();
+		}
+	}
+
+	public static String winnerPath(String levelId) {
+		return REPLAY_DIR + "/" + levelId + "-win" + EXTENSION;
+	}
+
+	public static String aiRunPath(String levelId) {
+		return REPLAY_DIR + "/" + levelId + "-ai" + EXTENSION;
+	}
+}
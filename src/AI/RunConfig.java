@@ -0,0 +1,225 @@
+package AI;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.Random;
+
+import TileMap.GeneratedLevel;
+
+import JavaNN.Util.Config;
+
+/* Settings of a training run, read from a .properties file so a run can be scaled up without recompiling.
+* Every key is optional, anything missing keeps the default below. Example:
+*
+*	level = Level1Map
+*	population.size = 10000
+*	network.hidden = 8,4
+*	sensor.viewDistance = 8
+*	sensor.rows = 17,15
+*	training.tickRates = 60,120,240,600,2400,6000
+*	ga.crossoverProbability = 0.8
+*	ga.crossover = arithmetic
+*
+* The ga.* settings belong to the run, see GeneticAlgorithm, so runs in the same program can use different ones.
+* The generator.* settings shape the course when level is GeneratedLevel, see TileMap.GeneratedLevel. */
+public class RunConfig implements Cloneable {
+	public static final String DEFAULT_PATH = "training.properties";
+
+	public String level = "TrainingLevel0Map";		//TileMap class, only used by headless runs, the game trains on the level picked in the menu
+	public int populationSize = 50;
+	public int[] hiddenLayers = {6, 4};
+	public int viewDistance = 5;
+	public int[] sensingRows = {};					//tilemap rows the AI sees, empty for just the row it spawns in
+	public boolean obstacleDistance = false;		//also give the network every row's distance to its next tile, see SensorTable
+	public int numElites = 2;
+	public int[] tickRates = {60, 120, 240, 600, 2400, 6000};	//speed steps of the < and > keys in training, with an uncapped step above the last
+	public int generations = 1000;					//headless and island runs give up after this many generations
+
+	public boolean dedup = false;
+	public boolean batchPhysics = false;			//simulate agents with Entity.PlayerBatch instead of a PlayerManager each
+	public boolean cache = true;
+	public int cacheCapacity = FitnessCache.DEFAULT_CAPACITY;	//raised to 4 generations worth of agents for large populations
+	public int maxTicks = 0;
+	public int stallTicks = 0;
+	public double cutoffFraction = -1;
+	public long seed = new Random().nextLong();		//a new one every run unless set, runs with the same seed and settings train the same
+	public int checkpointInterval = 0;				//headless runs save a checkpoint every this many generations, 0 for never
+	public boolean curriculum = false;				//start generations from a snapshot before where the elite dies, see TrainingSimulation
+	public int curriculumBackoff = 4;				//columns before the elite's death the start is put
+	public int curriculumPatience = 20;				//generations without getting past that point before the start moves back anyway
+	public int maxDrawnPlayers = 100;				//trailing players on screen drawn as sprites, above this many they are drawn as a density image
+	public int generatorLength = GeneratedLevel.DEFAULT_LENGTH;	//columns of a generated course, when level is GeneratedLevel
+	public double generatorDifficulty = 0.5;		//from 0 to 1
+	public boolean generatorPortals = true;			//whether courses have portal sections
+	public long generatorSeed = 0;					//seed of the course, or of the first one with newCourses
+	public boolean newCourses = false;				//a new course every generation, so agents can't learn one by heart
+
+	public double crossoverProbability = Config.CROSSOVER_PROBABILITY;
+	public double mutationProbability = Config.MUTATION_PROBABILITY;
+	public double geneMutationProbability = Config.GENE_MUTATION_PROBABILITY;
+	public double geneLowerLimit = Config.GENE_LOWER_LIMIT;
+	public double geneUpperLimit = Config.GENE_UPPER_LIMIT;
+	public String crossover = GeneticAlgorithm.UNIFORM;		//or GeneticAlgorithm.ARITHMETIC
+	public double crossoverCoefficient = Config.WHOLE_ARITHMETIC_CROSSOVER_COEFFICIENT;
+	public String mutation = GeneticAlgorithm.RANDOM;		//or GeneticAlgorithm.GAUSSIAN
+	public double mutationStdDev = 0.1;						//of the noise gaussian mutation adds to a gene
+
+	public static RunConfig load(String path) throws IOException {
+		return load(path, new RunConfig());
+	}
+
+	//anything missing from the file keeps its setting in defaults instead
+	public static RunConfig load(String path, RunConfig defaults) throws IOException {
+		Properties p = new Properties();
+		try (InputStream in = Files.newInputStream(Paths.get(path))) {
+			p.load(in);
+		}
+		return fromProperties(p, path, defaults);
+	}
+
+	//source names the properties in error messages
+	public static RunConfig fromProperties(Properties p, String source) throws IOException {
+		return fromProperties(p, source, new RunConfig());
+	}
+
+	public static RunConfig fromProperties(Properties p, String source, RunConfig defaults) throws IOException {
+		RunConfig c = defaults.withSeed(defaults.seed);
+		c.level = p.getProperty("level", c.level).trim();
+		c.populationSize = getInt(p, "population.size", c.populationSize);
+		c.hiddenLayers = getInts(p, "network.hidden", c.hiddenLayers);
+		c.viewDistance = getInt(p, "sensor.viewDistance", c.viewDistance);
+		c.sensingRows = getInts(p, "sensor.rows", c.sensingRows);
+		c.obstacleDistance = getBoolean(p, "sensor.obstacleDistance", c.obstacleDistance);
+		c.numElites = getInt(p, "ga.elites", c.numElites);
+		c.tickRates = getInts(p, "training.tickRates", c.tickRates);
+		c.generations = getInt(p, "training.generations", c.generations);
+		c.dedup = getBoolean(p, "training.dedup", c.dedup);
+		c.batchPhysics = getBoolean(p, "training.batchPhysics", c.batchPhysics);
+		c.cache = getBoolean(p, "training.cache", c.cache);
+		c.cacheCapacity = getInt(p, "training.cacheCapacity", c.cacheCapacity);
+		c.maxTicks = getInt(p, "training.maxTicks", c.maxTicks);
+		c.stallTicks = getInt(p, "training.stallTicks", c.stallTicks);
+		c.cutoffFraction = getDouble(p, "training.cutoffFraction", c.cutoffFraction);
+		c.maxDrawnPlayers = getInt(p, "training.maxDrawnPlayers", c.maxDrawnPlayers);
+		c.seed = getLong(p, "training.seed", c.seed);
+		c.checkpointInterval = getInt(p, "training.checkpointInterval", c.checkpointInterval);
+		c.curriculum = getBoolean(p, "training.curriculum", c.curriculum);
+		c.curriculumBackoff = getInt(p, "training.curriculumBackoff", c.curriculumBackoff);
+		c.curriculumPatience = getInt(p, "training.curriculumPatience", c.curriculumPatience);
+		c.generatorLength = getInt(p, "generator.length", c.generatorLength);
+		c.generatorDifficulty = getDouble(p, "generator.difficulty", c.generatorDifficulty);
+		c.generatorPortals = getBoolean(p, "generator.portals", c.generatorPortals);
+		c.generatorSeed = getLong(p, "generator.seed", c.generatorSeed);
+		c.newCourses = getBoolean(p, "generator.newCourses", c.newCourses);
+		c.crossoverProbability = getDouble(p, "ga.crossoverProbability", c.crossoverProbability);
+		c.mutationProbability = getDouble(p, "ga.mutationProbability", c.mutationProbability);
+		c.geneMutationProbability = getDouble(p, "ga.geneMutationProbability", c.geneMutationProbability);
+		c.geneLowerLimit = getDouble(p, "ga.geneLowerLimit", c.geneLowerLimit);
+		c.geneUpperLimit = getDouble(p, "ga.geneUpperLimit", c.geneUpperLimit);
+		c.crossover = p.getProperty("ga.crossover", c.crossover).trim();
+		c.crossoverCoefficient = getDouble(p, "ga.crossoverCoefficient", c.crossoverCoefficient);
+		c.mutation = p.getProperty("ga.mutation", c.mutation).trim();
+		c.mutationStdDev = getDouble(p, "ga.mutationStdDev", c.mutationStdDev);
+
+		if (c.populationSize < 1) throw new IOException(source + ": population.size has to be at least 1");
+		if (c.numElites < 0 || c.numElites > c.populationSize) throw new IOException(source + ": ga.elites has to be between 0 and population.size");
+		if (c.curriculumBackoff < 1 || c.curriculumPatience < 1) throw new IOException(source + ": training.curriculumBackoff and training.curriculumPatience have to be at least 1");
+		if (c.generatorLength < GeneratedLevel.MIN_LENGTH) throw new IOException(source + ": generator.length has to be at least " + GeneratedLevel.MIN_LENGTH);
+		if (c.generatorDifficulty < 0 || c.generatorDifficulty > 1) throw new IOException(source + ": generator.difficulty has to be between 0 and 1");
+		if (c.newCourses && c.curriculum) throw new IOException(source + ": generator.newCourses and training.curriculum can't be used together");
+		if (c.tickRates.length == 0) throw new IOException(source + ": training.tickRates is empty");
+		if (!c.crossover.equals(GeneticAlgorithm.UNIFORM) && !c.crossover.equals(GeneticAlgorithm.ARITHMETIC)) throw new IOException(source + ": ga.crossover has to be " + GeneticAlgorithm.UNIFORM + " or " + GeneticAlgorithm.ARITHMETIC);
+		if (!c.mutation.equals(GeneticAlgorithm.RANDOM) && !c.mutation.equals(GeneticAlgorithm.GAUSSIAN)) throw new IOException(source + ": ga.mutation has to be " + GeneticAlgorithm.RANDOM + " or " + GeneticAlgorithm.GAUSSIAN);
+		return c;
+	}
+
+	//the config in DEFAULT_PATH if there is one, the defaults otherwise
+	public static RunConfig loadDefault() {
+		return loadDefault(new RunConfig());
+	}
+
+	public static RunConfig loadDefault(RunConfig defaults) {
+		if (!new File(DEFAULT_PATH).exists()) return defaults.withSeed(defaults.seed);
+		try {
+			RunConfig c = load(DEFAULT_PATH, defaults);
+			System.out.println("Loaded run config from " + DEFAULT_PATH);
+			return c;
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Could not load " + DEFAULT_PATH + ", using the defaults: " + e.getMessage());
+			return defaults.withSeed(defaults.seed);
+		}
+	}
+
+	//the same settings with another seed, for one of several runs started from one config
+	public RunConfig withSeed(long seed) {
+		try {
+			RunConfig c = (RunConfig)clone();
+			c.seed = seed;
+			return c;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	//network inputs come from the sensors, and a single output decides whether to jump
+	public int[] getArchitecture(int numInputs) {
+		int[] architecture = new int[hiddenLayers.length + 2];
+		architecture[0] = numInputs;
+		System.arraycopy(hiddenLayers, 0, architecture, 1, hiddenLayers.length);
+		architecture[architecture.length - 1] = 1;
+		return architecture;
+	}
+
+	private static int getInt(Properties p, String key, int def) {
+		String v = p.getProperty(key);
+		if (v == null) return def;
+		try {
+			return Integer.parseInt(v.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(key + " is not a whole number: " + v);
+		}
+	}
+
+	private static long getLong(Properties p, String key, long def) {
+		String v = p.getProperty(key);
+		if (v == null) return def;
+		try {
+			return Long.parseLong(v.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(key + " is not a whole number: " + v);
+		}
+	}
+
+	private static double getDouble(Properties p, String key, double def) {
+		String v = p.getProperty(key);
+		if (v == null) return def;
+		try {
+			return Double.parseDouble(v.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(key + " is not a number: " + v);
+		}
+	}
+
+	private static boolean getBoolean(Properties p, String key, boolean def) {
+		String v = p.getProperty(key);
+		return v == null ? def : Boolean.parseBoolean(v.trim());
+	}
+
+	private static int[] getInts(Properties p, String key, int[] def) {
+		String v = p.getProperty(key);
+		if (v == null) return def;
+		if (v.trim().isEmpty()) return new int[0];
+		String[] parts = v.split(",");
+		int[] values = new int[parts.length];
+		try {
+			for (int i = 0; i < parts.length; i++) values[i] = Integer.parseInt(parts[i].trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(key + " is not a list of whole numbers: " + v);
+		}
+		return values;
+	}
+}
@@ -0,0 +1,109 @@
+package AI;
+
+import Entity.Player;
+import TileMap.TileMap;
+
+/* What the AI sees, precomputed per level when it loads.
+* For every column of each sensing row, the table stores one long: which of the next viewDistance columns hold a tile as a bit mask
+* in the low bits (bit i is set if column c+i is not air), and how many columns ahead the next tile is in the top DISTANCE_BITS,
+* counting the end of the level as one and capped at MAX_DISTANCE.
+* Sensing is then one table read per row instead of scanning the map, and writes into a buffer owned by the caller.
+* A level that is generated as it is played calls update with the columns it has written.
+*
+* Network inputs, in order: the distance from the player's front to the next column in tiles, then for every sensing row the occupancy
+* of its next viewDistance columns, followed with obstacleDistance by the distance from the player's front to the row's next tile in tiles.
+* With a single row and no obstacle distance this matches the inputs the AI has always been trained on. */
+public final class SensorTable {
+	public static final int DISTANCE_BITS = 16;
+	public static final int MAX_VIEW_DISTANCE = 64 - DISTANCE_BITS;
+	public static final int MAX_DISTANCE = (1 << DISTANCE_BITS) - 1;
+
+	private final int tileSize;
+	private final int viewDistance;
+	private final boolean obstacleDistance;
+	private final int[] rows;
+	private final long mask;
+	private final long[][] table;		//[row][column], occupancy bits and distance to the next tile
+
+	public SensorTable(TileMap tileMap, int viewDistance, int... rows) {
+		this(tileMap, viewDistance, false, rows);
+	}
+
+	public SensorTable(TileMap tileMap, int viewDistance, boolean obstacleDistance, int... rows) {
+		if (viewDistance < 1 || viewDistance > MAX_VIEW_DISTANCE) throw new IllegalArgumentException("View distance has to be between 1 and " + MAX_VIEW_DISTANCE);
+		if (rows.length == 0) throw new IllegalArgumentException("Need at least one sensing row");
+		byte[][] map = tileMap.getMap();
+		this.tileSize = tileMap.getTileSize();
+		this.viewDistance = viewDistance;
+		this.obstacleDistance = obstacleDistance;
+		this.rows = rows.clone();
+
+		mask = (1L << viewDistance) - 1;
+		table = new long[rows.length][];
+		for (int r = 0; r < rows.length; r++) {
+			if (rows[r] < 0 || rows[r] >= map.length) throw new IllegalArgumentException("Sensing row " + rows[r] + " is outside the level");
+			//one extra column past the end of the level, where there is nothing left to see
+			table[r] = new long[map[0].length + 1];
+		}
+		update(map, 0, map[0].length);
+	}
+
+	//works the table out again after the columns [fromCol, toCol) of the map changed
+	//the columns before them see into them, so they are redone too until one comes out the same as before
+	public void update(byte[][] map, int fromCol, int toCol) {
+		for (int r = 0; r < rows.length; r++) {
+			byte[] row = map[rows[r]];
+			long[] entries = table[r];
+			for (int c = toCol - 1; c >= 0; c--) {
+				boolean occupied = row[c] > 0;
+				long next = entries[c+1];
+				long bits = ((next << 1) | (occupied ? 1 : 0)) & mask;
+				long distance = occupied ? 0 : Math.min(MAX_DISTANCE, (next >>> MAX_VIEW_DISTANCE) + 1);
+				long entry = bits | distance << MAX_VIEW_DISTANCE;
+				if (c < fromCol && entry == entries[c]) break;
+				entries[c] = entry;
+			}
+		}
+	}
+
+	//the row the original sensors look at, the one the player spawns in
+	public static int spawnRow(double spawnY, int tileSize) {
+		return (int)spawnY / tileSize;
+	}
+
+	public int getNumInputs() {return numInputs(viewDistance, obstacleDistance, rows.length);}
+
+	public static int numInputs(int viewDistance, boolean obstacleDistance, int numRows) {
+		return 1 + numRows * (viewDistance + (obstacleDistance ? 1 : 0));
+	}
+
+	//fills getNumInputs() values of out starting at offset
+	public void sense(Player player, double[] out, int offset) {
+		sense(player.getx() + player.getCWidth()/2, out, offset);
+	}
+
+	//same, from the x coordinate of the front of the player's collision box
+	public void sense(int playerFront, double[] out, int offset) {
+		int col = Math.ceilDiv(playerFront, tileSize);
+		double toColumn = (double)(col * tileSize - playerFront) / tileSize;
+		out[offset] = toColumn;
+
+		int c = Math.max(0, Math.min(col, table[0].length - 1));
+		int i = offset + 1;
+		for (int r = 0; r < rows.length; r++) {
+			long entry = table[r][c];
+			for (int k = 0; k < viewDistance; k++) {
+				out[i++] = (entry >>> k) & 1;
+			}
+			if (obstacleDistance) out[i++] = toColumn + (entry >>> MAX_VIEW_DISTANCE);
+		}
+	}
+
+	//getters
+	public int getViewDistance() {return viewDistance;}
+	public boolean sensesObstacleDistance() {return obstacleDistance;}
+	public int[] getRows() {return rows.clone();}
+	public long getOccupancy(int row, int col) {return getEntry(row, col) & mask;}
+	public int getObstacleDistance(int row, int col) {return (int)(getEntry(row, col) >>> MAX_VIEW_DISTANCE);}
+	private long getEntry(int row, int col) {return table[row][Math.max(0, Math.min(col, table[row].length - 1))];}
+}
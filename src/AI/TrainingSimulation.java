@@ -0,0 +1,785 @@
+package AI;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import Entity.*;
+import TileMap.GeneratedLevel;
+import TileMap.LevelCompiler;
+import TileMap.TileMap;
+
+import JavaNN.Network.NeuralNetwork;
+import JavaNN.Util.Config;
+
+/* The genetic algorithm and physics behind Training mode, without any drawing, sound or timing so it can also run headless.
+*
+* Trajectory deduplication: agents in the same state that make the same decision share one simulated player.
+* Every player manager p simulates a group of agents (a linked list through groupNext), and agent p is always in group p,
+* so a group that splits off can take over the player manager of its first agent.
+*
+* Fitness cache: agents whose genome has already been simulated from the same spawn get their cached fitness and are skipped,
+* or with ghosts on, are played back from their cached input for display without counting towards the generation.
+*
+* End conditions: a generation normally ends once every agent is dead. It can also be cut short after a number of ticks,
+* or once the leader has not gone any further for a number of ticks. Survivors are then scored where they are, and not cached since their fitness
+* depends on when the cut happened. The elite cut-off does not end the generation: once enough of the population is dead that the survivors
+* are certain to be the elites, it scores the survivors behind the leader where they are, and only the leading ones play on so they can still finish the level.
+*
+* Batch physics: with RunConfig.batchPhysics, players are simulated by one Entity.PlayerBatch instead of a PlayerManager each.
+* Both move the same, tick for tick. The player managers are then only created once getPlayers() is called, and mirror the batch for drawing.
+*
+* Curriculum: with RunConfig.curriculum, once a generation from the spawn is scored, the next ones start from a WorldSnapshot taken
+* curriculumBackoff columns before where the elite died, so the part of the level that is already solved is not played again every generation.
+* Once a generation from there gets past that point, or has not for curriculumPatience generations, the start moves back halfway to the spawn
+* along the same input, and so on until a generation starts from the spawn again and the elite's next death sets the next start.
+* Every agent then spawns in the snapshot's state, with its input so far already in its replay. Only a run from the spawn counts as a winner,
+* one that finishes the level from a snapshot just ends its generation.
+*
+* Deaths: every simulated death is counted in a DeathMap by column and cause, across generations, to show where training gets stuck.
+*
+* Generated courses: on a TileMap.GeneratedLevel, the course is generated a few columns ahead of the leading player every tick,
+* and its new entities and sensor columns are added as it goes. Triggers are numbered with room for every orb and pad the course can have.
+* With RunConfig.newCourses, every generation plays a new course, seeded by its number so a resumed run plays the same ones. */
+public class TrainingSimulation {
+	public static final double SPAWN_X = 320;
+	public static final double SPAWN_Y = 560;
+	private static final double JUMP_THRESHOLD = 0.98;
+
+	private TileMap tileMap;
+	private int populationSize;
+	private int numElites;
+	private ArrayList<Orb> orbs;
+	private ArrayList<Pad> pads;
+	private ArrayList<GravityPortal> gportals;
+	private ArrayList<Portal> portals;
+	private SensorTable sensors;
+	private int viewDistance;
+	private double[] networkInputs;
+	private FlatNetwork evaluator;	//evaluates every agent straight from the gene pool, which is laid out the same as JavaNN's parameters
+
+	private ArrayList<PlayerManager> players;
+	private PlayerBatch batch;	//null when every agent is simulated by its own player manager
+	private Replay[] replays;	//input of every agent in the current generation, the winner's is saved
+	private GenePool pool;		//genes and fitness of every agent
+	private GeneticAlgorithm geneticAlgorithm;
+	private boolean saveModels = true;	//off for runs that share the program with others, like a sweep's
+	private String winnerModelPath = "ai_models/training-win" + ModelFile.EXTENSION;
+	private boolean stopAtWinner = true;	//off when a run that finishes the level is only scored, see MultiLevelTraining
+	private int numAlive;
+	private int generation;
+	private int tick;
+	private int winner;			//player manager that finished the level, -1 until one does
+	private long agentTicks;	//agent ticks simulated this generation, counting every member of a group
+	private long playerTicks;	//player updates done this generation, one per group
+	private int leader;			//player manager furthest ahead, tracked as players move instead of searched for
+	private double leaderX;
+
+	private int[] deaths;		//player managers that died during the last tick
+	private int numDeaths;
+	private DeathMap deathMap;
+
+	private boolean dedup;
+	private int[] groupHead;	//first agent of each player manager's group, -1 if the player manager is unused
+	private int[] groupTail;
+	private int[] groupNext;	//next agent in the same group, -1 at the end
+	private int[] groupSize;
+	private int[] activeGroups;
+	private boolean[] decisions;
+	private long[] stateHashes;	//open addressing table used to find groups in the same state
+	private int[] stateSlots;
+
+	private FitnessCache cache;
+	private FitnessCache.Key[] keys;
+	private Replay.Reader[] ghostInputs;	//input of the cached agent a player manager plays back, null if it is simulated
+	private boolean ghosts;
+	private int numCached;
+
+	//end conditions, all off by default
+	private int maxTicks;			//0 for no limit
+	private int stallTicks;			//0 for no limit
+	private double cutoffFraction;	//negative to turn the elite cut-off off
+	private double leaderBest;		//furthest any simulated agent has got this generation
+	private int lastImprovement;	//tick the leader last got further
+	private double bestFinished;	//best fitness of the agents that are already scored
+	private String endReason;		//why the generation was cut short, null if it was not
+	private boolean cutoffReached;	//the elite cut-off has already stopped the trailing survivors this generation
+
+	//curriculum, off by default
+	private boolean curriculum;
+	private int curriculumBackoff;
+	private int curriculumPatience;
+	private WorldSnapshot start;		//where the generation starts, null for the spawn
+	private double curriculumGoal;		//where the elite died when the start was last moved up, runs from the start have to get past it
+	private int generationsAtStart;		//generations since the start last moved
+	private boolean startPlanned;		//whether the start of the next generation has been picked already
+	private Replay[] cachedRuns;		//input of the agents whose fitness came from the cache this generation, null for the others
+
+	//generated course, null on a hand-written level
+	private GeneratedLevel course;
+	private boolean newCourses;
+	private long courseSeed;
+	private int numSpawned;		//entities of the course spawned so far
+	private int padTriggers;	//trigger of the first pad, the orbs' come before it
+	private int numTriggers;
+
+	//the tilemap has to be loaded already, call startGeneration once the simulation is configured
+	public TrainingSimulation(TileMap tileMap) {
+		this(tileMap, new RunConfig());
+	}
+
+	public TrainingSimulation(TileMap tileMap, RunConfig config) {
+		this.tileMap = tileMap;
+		populationSize = config.populationSize;
+		numElites = config.numElites;
+		if (tileMap instanceof GeneratedLevel) {
+			course = (GeneratedLevel)tileMap;
+			course.configure(config.generatorLength, config.generatorDifficulty, config.generatorPortals);
+			course.generate(config.generatorSeed);
+			newCourses = config.newCourses;
+			courseSeed = config.generatorSeed;
+		}
+
+		orbs = new ArrayList<Orb>();
+		pads = new ArrayList<Pad>();
+		gportals = new ArrayList<GravityPortal>();
+		portals = new ArrayList<Portal>();
+		int[][] entities = LevelCompiler.load(tileMap).getEntities();
+		EntityScanner.spawn(tileMap, entities, orbs, pads, gportals, portals);
+		numSpawned = entities.length;
+		padTriggers = course != null ? course.getMaxOrbs() : orbs.size();
+		numTriggers = padTriggers + (course != null ? course.getMaxPads() : pads.size());
+		int[] rows = config.sensingRows.length > 0 ? config.sensingRows : new int[]{SensorTable.spawnRow(SPAWN_Y, tileMap.getTileSize())};
+		sensors = new SensorTable(tileMap, config.viewDistance, config.obstacleDistance, rows);
+		viewDistance = config.viewDistance;
+		networkInputs = new double[sensors.getNumInputs()];
+
+		int[] architecture = config.getArchitecture(sensors.getNumInputs());
+		pool = new GenePool(populationSize, architecture);
+		geneticAlgorithm = new GeneticAlgorithm(config);
+		geneticAlgorithm.randomize(pool);
+		evaluator = new FlatNetwork(architecture, FlatNetwork.defaultActivations(architecture.length));
+
+		if (config.batchPhysics) batch = new PlayerBatch(tileMap, populationSize, orbs, pads, gportals, portals, padTriggers, numTriggers - padTriggers);
+		else createPlayers();
+		replays = new Replay[populationSize];
+		for (int i = 0; i < populationSize; i++) {
+			replays[i] = new Replay(tileMap.getLevelId(), SPAWN_X, SPAWN_Y);
+		}
+
+		deaths = new int[populationSize];
+		deathMap = new DeathMap(tileMap.getWidth() / tileMap.getTileSize(), tileMap.getTileSize());
+		groupHead = new int[populationSize];
+		groupTail = new int[populationSize];
+		groupNext = new int[populationSize];
+		groupSize = new int[populationSize];
+		activeGroups = new int[populationSize];
+		decisions = new boolean[populationSize];
+
+		int tableSize = Integer.highestOneBit(Math.max(populationSize, 2) * 2 - 1) << 1;
+		stateHashes = new long[tableSize];
+		stateSlots = new int[tableSize];
+
+		//the cache has to hold a few generations worth of agents to be of any use
+		cache = config.cache ? new FitnessCache(Math.max(config.cacheCapacity, 4 * populationSize)) : null;
+		keys = new FitnessCache.Key[populationSize];
+		ghostInputs = new Replay.Reader[populationSize];
+		cachedRuns = new Replay[populationSize];
+
+		dedup = config.dedup;
+		maxTicks = config.maxTicks;
+		stallTicks = config.stallTicks;
+		cutoffFraction = config.cutoffFraction;
+		curriculum = config.curriculum;
+		curriculumBackoff = config.curriculumBackoff;
+		curriculumPatience = config.curriculumPatience;
+		generation = 0;
+	}
+
+	//spawns every agent of the current population
+	//with dedup on, every agent spawns at the same point and starts out in one group, otherwise spawns are staggered and every agent is its own group
+	//from a curriculum snapshot, every agent starts in the snapshot's state
+	public void startGeneration() {
+		numAlive = 0;
+		numDeaths = 0;
+		numCached = 0;
+		tick = 0;
+		winner = -1;
+		leaderBest = 0;
+		lastImprovement = 0;
+		bestFinished = 0;
+		endReason = null;
+		cutoffReached = false;
+		leader = 0;
+		leaderX = -1;
+		agentTicks = 0;
+		playerTicks = 0;
+		startPlanned = false;
+
+		int firstGroup = -1;
+		double spawnX = start != null ? start.getx() : SPAWN_X;
+		if (course != null) {
+			if (newCourses) newCourse(GeneticAlgorithm.split(courseSeed, generation));
+			generateAhead(spawnX);
+		}
+		String levelId = course != null ? course.getCourseId() : tileMap.getLevelId();
+		for (int i = 0; i < populationSize; i++) {
+			if (start != null) {
+				if (batch != null) start.restore(batch, i);
+				else start.restore(players.get(i));
+				replays[i].clear(start.getInput());
+			}
+			else {
+				if (spawnX < 10) spawnX = SPAWN_X;
+				if (batch != null) batch.spawn(i, spawnX, SPAWN_Y);
+				else spawn(players.get(i), spawnX, SPAWN_Y);
+				replays[i].clear(spawnX, SPAWN_Y);
+			}
+
+			groupHead[i] = -1;
+			groupNext[i] = -1;
+			groupSize[i] = 0;
+			ghostInputs[i] = null;
+			cachedRuns[i] = null;
+
+			FitnessCache.Entry cached = null;
+			if (cache != null) {
+				double[] genes = pool.getGenes();
+				int offset = pool.offset(i);
+				int numGenes = pool.getNumGenes();
+				if (start != null) keys[i] = FitnessCache.key(genes, offset, numGenes, levelId, start.getx(), start.gety(), start.getStateHash());
+				else keys[i] = FitnessCache.key(genes, offset, numGenes, levelId, spawnX, SPAWN_Y, 0);
+				cached = cache.get(keys[i]);
+			}
+			if (cached != null) {
+				pool.setFitness(i, cached.getFitness());
+				bestFinished = Math.max(bestFinished, cached.getFitness());
+				numCached++;
+				cachedRuns[i] = cached.getReplay();
+				if (ghosts) {
+					addToGroup(i, i);
+					ghostInputs[i] = cached.getReplay().reader();
+					for (int t = 0; start != null && t < start.getTick(); t++) ghostInputs[i].next();	//the players are already past the input before the snapshot
+				}
+			}
+			else {
+				if (dedup && firstGroup != -1) addToGroup(firstGroup, i);
+				else {
+					addToGroup(i, i);
+					firstGroup = i;
+				}
+				numAlive++;
+			}
+
+			if (groupHead[i] != -1 && spawnX > leaderX) {
+				leader = i;
+				leaderX = spawnX;
+			}
+			if (!dedup && start == null) spawnX -= getDX(i);
+		}
+		if (batch != null && players != null) mirrorBatch();
+	}
+
+	//carries on from a checkpoint: the gene pool already has its genes and fitness, the next generation is bred from them
+	void restore(int generation, long seed) {
+		this.generation = generation;
+		geneticAlgorithm.setSeed(seed);
+	}
+
+	//and the curriculum's start for the next generation, input is the start's or null for the spawn
+	void restoreCurriculum(Replay input, double goal, int generationsAtStart) {
+		start = input != null ? capture(input, Double.POSITIVE_INFINITY) : null;
+		curriculumGoal = goal;
+		this.generationsAtStart = generationsAtStart;
+		startPlanned = true;
+	}
+
+	//for a simulation that only scores genes bred elsewhere: the generation a new course is made for, see RunConfig.newCourses
+	void setGeneration(int generation) {
+		this.generation = generation;
+	}
+
+	//evolves the population and starts the next generation
+	public void nextGeneration() {
+		planNextStart();
+		generation++;
+		geneticAlgorithm.evolve(pool, generation);
+		if (saveModels && Config.saveMostFitPerGen) {
+			saveModel(pool.toNetwork(pool.getFittest()), "ai_models/temp/training-gen-" + generation + ModelFile.EXTENSION);
+		}
+		startGeneration();
+	}
+
+	public boolean isOver() {return numAlive == 0 || winner != -1;}
+
+	//simulates the current generation until every agent is dead or one finishes the level, returns the number of ticks it took
+	public int runGeneration() {
+		while (!isOver()) tick();
+		return tick;
+	}
+
+	//advances every agent by one tick
+	public void tick() {
+		numDeaths = 0;
+		if (isOver()) return;
+		if (course != null) generateAhead(leaderX);
+
+		//collect the groups to simulate first, groups split off during this tick have already been updated
+		int numGroups = 0;
+		for (int p = 0; p < populationSize; p++) {
+			if (groupHead[p] != -1 && !isDead(p)) activeGroups[numGroups++] = p;
+		}
+
+		//update players, they do not interact so every player can be moved before any of them is looked at
+		if (batch != null) batch.update(activeGroups, numGroups);
+		else {
+			for (int g = 0; g < numGroups; g++) {
+				players.get(activeGroups[g]).update();
+			}
+		}
+		playerTicks += numGroups;
+
+		for (int g = 0; g < numGroups; g++) {
+			int p = activeGroups[g];
+			int x = getx(p);
+			if (ghostInputs[p] == null) agentTicks += groupSize[p];
+			if (x >= leaderX) {
+				leader = p;
+				leaderX = x;
+			}
+			if (ghostInputs[p] == null && x > leaderBest) {
+				leaderBest = x;
+				lastImprovement = tick;
+			}
+
+			// win condition, ghosts only stop at the end
+			if (atEndOfLevel(p)) {
+				if (batch != null) batch.setMoving(p, false);
+				else players.get(p).getPlayer().setMoving(false);
+				if (getDX(p) == 0 && ghostInputs[p] == null) {
+					if (start != null) {
+						//the level's end can be reached from the snapshot, the curriculum moves the start back
+						endGeneration("finished the level from the curriculum start");
+						if (batch != null && players != null) mirrorBatch();
+						return;
+					}
+					if (!stopAtWinner) {
+						//scored where it stopped like a death, and taken out of the generation, which plays on
+						for (int a = groupHead[p]; a != -1; a = groupNext[a]) {
+							numAlive--;
+							pool.setFitness(a, x);
+							if (cache != null) cache.put(keys[a], x, replays[a].copy());
+						}
+						bestFinished = Math.max(bestFinished, x);
+						if (batch != null) batch.setDead(p, true);
+						else players.get(p).getPlayer().setDead(true);
+						continue;
+					}
+					winner = p;
+					for (int a = groupHead[p]; a != -1; a = groupNext[a]) {
+						pool.setFitness(a, x);
+					}
+					if (saveModels && Config.saveWinner) {
+						saveModel(pool.toNetwork(p), winnerModelPath);
+						replays[p].saveWinner();
+					}
+					if (batch != null && players != null) mirrorBatch();
+					return;
+				}
+			}
+
+			// death update, every agent in the group dies together
+			if (isDead(p)) {
+				deaths[numDeaths++] = p;
+				if (ghostInputs[p] != null) continue;
+				deathMap.record(x, getDeathCause(p), groupSize[p]);
+				for (int a = groupHead[p]; a != -1; a = groupNext[a]) {
+					numAlive--;
+					pool.setFitness(a, x);
+					if (cache != null) cache.put(keys[a], x, replays[a].copy());
+				}
+				bestFinished = Math.max(bestFinished, x);
+				continue;
+			}
+
+			// ghosts replay their cached input
+			if (ghostInputs[p] != null) {
+				applyInput(p, ghostInputs[p].next());
+				continue;
+			}
+
+			// get jump input from every network in the group, they all see the same inputs
+			if (batch != null) sensors.sense(x + batch.getCWidth(p)/2, networkInputs, 0);
+			else sensors.sense(players.get(p).getPlayer(), networkInputs, 0);
+			int numJumping = 0;
+			for (int a = groupHead[p]; a != -1; a = groupNext[a]) {
+				evaluator.setParameters(pool.getGenes(), pool.offset(a));
+				double networkOutput = evaluator.evaluate(networkInputs)[0];
+				decisions[a] = networkOutput >= JUMP_THRESHOLD;
+				replays[a].record(decisions[a]);
+				if (decisions[a]) numJumping++;
+			}
+
+			// the group forks when its networks disagree
+			if (numJumping != 0 && numJumping != groupSize[p]) {
+				int q = splitGroup(p);
+				applyInput(q, decisions[q]);
+			}
+			applyInput(p, decisions[p]);
+		}
+
+		if (dedup) mergeGroups();
+		if (batch != null && players != null) mirrorBatch();
+		tick++;
+		if (!isOver()) checkEndConditions();
+		if (isOver() && bestFinished > 0) deathMap.recordGeneration(bestFinished);
+	}
+
+	private void checkEndConditions() {
+		if (maxTicks > 0 && tick >= maxTicks) endGeneration("tick budget of " + maxTicks + " reached");
+		else if (stallTicks > 0 && tick - lastImprovement > stallTicks) endGeneration("leader stalled for " + stallTicks + " ticks");
+		else if (cutoffFraction >= 0 && !cutoffReached && survivorsAreElites()) stopTrailingSurvivors();
+	}
+
+	//true once enough agents are scored and every survivor is already ahead of all of them, more ticks cannot change who the elites are
+	private boolean survivorsAreElites() {
+		if (numAlive > numElites || populationSize - numAlive < cutoffFraction * populationSize) return false;
+		for (int p = 0; p < populationSize; p++) {
+			if (groupHead[p] == -1 || ghostInputs[p] != null || isDead(p)) continue;
+			if (getx(p) < bestFinished) return false;
+		}
+		return true;
+	}
+
+	//scores the survivors behind the leading ones where they are and takes them out of the generation, the leading ones play on
+	private void stopTrailingSurvivors() {
+		int leadX = Integer.MIN_VALUE;
+		for (int p = 0; p < populationSize; p++) {
+			if (groupHead[p] == -1 || ghostInputs[p] != null || isDead(p)) continue;
+			leadX = Math.max(leadX, getx(p));
+		}
+		for (int p = 0; p < populationSize; p++) {
+			if (groupHead[p] == -1 || ghostInputs[p] != null || isDead(p) || getx(p) == leadX) continue;
+			for (int a = groupHead[p]; a != -1; a = groupNext[a]) {
+				pool.setFitness(a, getx(p));
+				numAlive--;
+			}
+			if (batch != null) batch.setDead(p, true);
+			else players.get(p).getPlayer().setDead(true);
+		}
+		cutoffReached = true;
+		endReason = "survivors are the elites, only the leaders played on";
+	}
+
+	//scores the survivors where they are and ends the generation
+	private void endGeneration(String reason) {
+		for (int p = 0; p < populationSize; p++) {
+			if (groupHead[p] == -1 || ghostInputs[p] != null || isDead(p)) continue;
+			for (int a = groupHead[p]; a != -1; a = groupNext[a]) {
+				pool.setFitness(a, getx(p));
+				numAlive--;
+			}
+		}
+		endReason = reason;
+	}
+
+	private void addToGroup(int p, int agent) {
+		if (groupHead[p] == -1) groupHead[p] = agent;
+		else groupNext[groupTail[p]] = agent;
+		groupTail[p] = agent;
+		groupNext[agent] = -1;
+		groupSize[p]++;
+	}
+
+	//moves the agents of group p that decided differently from agent p to a group of their own, which continues from a copy of p's state
+	//returns the player manager of the new group
+	private int splitGroup(int p) {
+		boolean decision = decisions[p];
+		int a = groupHead[p];
+		int q = -1;
+		groupHead[p] = -1;
+		groupSize[p] = 0;
+		while (a != -1) {
+			int next = groupNext[a];
+			if (decisions[a] == decision) addToGroup(p, a);
+			else {
+				if (q == -1) {
+					q = a;
+					groupHead[q] = -1;
+					groupSize[q] = 0;
+				}
+				addToGroup(q, a);
+			}
+			a = next;
+		}
+		if (batch != null) batch.copyState(p, q);
+		else players.get(q).copyStateFrom(players.get(p));
+		return q;
+	}
+
+	//merges groups that ended the tick in exactly the same state, they will move identically until their networks disagree
+	private void mergeGroups() {
+		int mask = stateSlots.length - 1;
+		Arrays.fill(stateSlots, -1);
+		for (int p = 0; p < populationSize; p++) {
+			if (groupHead[p] == -1 || ghostInputs[p] != null || isDead(p)) continue;
+			long hash = batch != null ? batch.stateHash(p) : players.get(p).stateHash();
+			int slot = (int)(hash ^ (hash >>> 32)) * 0x9E3779B9 & mask;
+			while (stateSlots[slot] != -1) {
+				int other = stateSlots[slot];
+				if (stateHashes[slot] == hash && (batch != null ? batch.sameState(other, p) : players.get(other).sameState(players.get(p)))) {
+					groupNext[groupTail[other]] = groupHead[p];
+					groupTail[other] = groupTail[p];
+					groupSize[other] += groupSize[p];
+					groupHead[p] = -1;
+					if (leader == p) leader = other;
+					break;
+				}
+				slot = (slot + 1) & mask;
+			}
+			if (groupHead[p] != -1) {
+				stateHashes[slot] = hash;
+				stateSlots[slot] = p;
+			}
+		}
+	}
+
+	//gives the jump input to player manager p and lets it interact with the level's entities
+	private void applyInput(int p, boolean shouldJump) {
+		if (batch != null) {
+			batch.applyInput(p, shouldJump);
+			return;
+		}
+		applyInput(players.get(p), shouldJump);
+	}
+
+	private void applyInput(PlayerManager pm, boolean shouldJump) {
+		Player player = pm.getPlayer();
+		pm.setJumpInput(shouldJump);
+
+		//update entities, orbs and pads are activated per player (orbs first, then pads from padTriggers on)
+		for (int j = 0; j < orbs.size(); j++) {
+			if (player.intersects(orbs.get(j)) && player.getJumping() && player.isFirstJump() && !pm.isTriggerActivated(j)) {
+				player.hitOrb(orbs.get(j));
+				pm.setTriggerActivated(j);
+			}
+		}
+
+		for (int j = 0; j < pads.size(); j++) {
+			if (player.intersects(pads.get(j)) && !pm.isTriggerActivated(padTriggers + j)) {
+				player.hitPad(pads.get(j));
+				pm.setTriggerActivated(padTriggers + j);
+			}
+		}
+
+		for (int j = 0; j < gportals.size(); j++) {
+			if (player.intersects(gportals.get(j))) {
+				if (gportals.get(j).getType() == GravityPortal.NORMAL || gportals.get(j).getType() == GravityPortal.NORMALH) {
+					if (player.getGravity() != 1) player.flipGravity();
+				}
+				else {
+					if (player.getGravity() != -1) player.flipGravity();
+				}
+			}
+		}
+
+		for (int j = 0; j < portals.size(); j++) {
+			if (player.intersects(portals.get(j))) {
+				if(portals.get(j).getType() == Portal.CUBE) pm.setPlayer(Portal.CUBE);
+				else if(portals.get(j).getType() == Portal.SHIP) pm.setPlayer(Portal.SHIP);
+				else if(portals.get(j).getType() == Portal.BALL) pm.setPlayer(Portal.BALL);
+				else if(portals.get(j).getType() == Portal.WAVE) pm.setPlayer(Portal.WAVE);
+			}
+		}
+	}
+
+	//puts a player manager in its state at the start of a level, with its cube at x, y
+	private void spawn(PlayerManager pm, double x, double y) {
+		pm.getPlayer().setDead(false);
+		pm.init();
+		pm.getPlayer().initValues();
+		pm.getPlayer().setPosition(x, y);
+		pm.resetTriggers(numTriggers);
+	}
+
+	//writes the course far enough past x for every player to sense and move through, and adds what was written to the simulation
+	private void generateAhead(double x) {
+		int from = course.getGeneratedCols();
+		if (!course.generateTo((int)x / tileMap.getTileSize() + viewDistance + 2)) return;
+		sensors.update(tileMap.getMap(), from, course.getGeneratedCols());
+		int[][] entities = LevelCompiler.load(tileMap).getEntities();
+		if (entities.length == numSpawned) return;
+		EntityScanner.spawn(tileMap, Arrays.copyOfRange(entities, numSpawned, entities.length), orbs, pads, gportals, portals);
+		numSpawned = entities.length;
+		if (batch != null) batch.updateEntities();
+	}
+
+	//starts the course over with another seed, before any player is spawned on it
+	private void newCourse(long seed) {
+		int generated = course.getGeneratedCols();
+		course.generate(seed);
+		sensors.update(tileMap.getMap(), 0, generated);
+		orbs.clear();
+		pads.clear();
+		gportals.clear();
+		portals.clear();
+		numSpawned = 0;
+		if (batch != null) batch.updateEntities();
+	}
+
+	//moves the start of the next generation once the current one is scored, see the class comment
+	//a checkpoint saves the start it picks, since it depends on the input of the generation's agents
+	void planNextStart() {
+		if (!curriculum || startPlanned) return;
+		startPlanned = true;
+		int elite = pool.getFittest();
+		double reached = pool.getFitness(elite);
+		WorldSnapshot next = start;
+		if (start == null) {
+			//from the spawn, the elite's death sets the next start
+			curriculumGoal = reached;
+			Replay run = cachedRuns[elite] != null ? cachedRuns[elite] : replays[elite];
+			next = capture(run, ((int)reached / tileMap.getTileSize() - curriculumBackoff) * tileMap.getTileSize());
+		}
+		else if (reached > curriculumGoal || generationsAtStart + 1 >= curriculumPatience) {
+			next = capture(start.getInput(), (start.getx() + start.getInput().getSpawnX()) / 2);
+		}
+		if (next != start) {
+			start = next;
+			generationsAtStart = 0;
+		}
+		else generationsAtStart++;
+	}
+
+	//plays a recorded input from its spawn until the player reaches x, or until the input runs out, and keeps the state there
+	//null for the spawn itself: when x is less than curriculumBackoff columns from the spawn, there is too little to skip to bother
+	WorldSnapshot capture(Replay run, double x) {
+		if (x - run.getSpawnX() < curriculumBackoff * tileMap.getTileSize()) return null;
+		Replay.Reader reader = run.reader();
+		Replay input = new Replay(tileMap.getLevelId(), run.getSpawnX(), run.getSpawnY());
+		if (batch != null) {
+			PlayerBatch b = new PlayerBatch(tileMap, 1, orbs, pads, gportals, portals, padTriggers, numTriggers - padTriggers);
+			b.spawn(0, run.getSpawnX(), run.getSpawnY());
+			while (b.getx(0) < x && reader.hasNext()) {
+				b.update(0);
+				if (b.isDead(0) || b.atEndOfLevel(0)) return null;
+				boolean jump = reader.next();
+				input.record(jump);
+				b.applyInput(0, jump);
+			}
+			return new WorldSnapshot(input, b);
+		}
+		PlayerManager pm = new PlayerManager(tileMap);
+		spawn(pm, run.getSpawnX(), run.getSpawnY());
+		while (pm.getPlayer().getx() < x && reader.hasNext()) {
+			pm.update();
+			if (pm.getPlayer().isDead() || pm.getPlayer().atEndOfLevel()) return null;
+			boolean jump = reader.next();
+			input.record(jump);
+			applyInput(pm, jump);
+		}
+		return new WorldSnapshot(input, pm);
+	}
+
+	//the same questions asked of whichever physics is in use
+	private boolean isDead(int p) {return batch != null ? batch.isDead(p) : players.get(p).getPlayer().isDead();}
+	private int getDeathCause(int p) {return batch != null ? batch.getDeathCause(p) : players.get(p).getPlayer().getDeathCause();}
+	private int getx(int p) {return batch != null ? batch.getx(p) : players.get(p).getPlayer().getx();}
+	private double getDX(int p) {return batch != null ? batch.getDX(p) : players.get(p).getPlayer().getDX();}
+	private boolean atEndOfLevel(int p) {return batch != null ? batch.atEndOfLevel(p) : players.get(p).getPlayer().atEndOfLevel();}
+
+	private void createPlayers() {
+		players = new ArrayList<PlayerManager>();
+		for (int i = 0; i < populationSize; i++) {
+			players.add(new PlayerManager(tileMap));
+		}
+	}
+
+	//brings the player managers up to date with the batch, for drawing
+	private void mirrorBatch() {
+		for (int p = 0; p < populationSize; p++) {
+			if (groupHead[p] != -1) batch.copyTo(p, players.get(p));
+		}
+	}
+
+	//saved with the sensors it was trained with, so it is played with the same ones
+	private void saveModel(NeuralNetwork network, String path) {
+		try {
+			ModelFile.save(path, network, sensors, false);
+			System.out.println("Saved model to " + path);
+		} catch (IOException e) {
+			System.out.println("Error occured while creating model save file.");
+			e.printStackTrace();
+		}
+	}
+
+	//player manager furthest ahead, dead or alive
+	public int getLeadingPlayer() {return leader;}
+
+	//number of distinct trajectories still being simulated
+	public int getNumPaths() {
+		int paths = 0;
+		for (int p = 0; p < populationSize; p++) {
+			if (groupHead[p] != -1 && ghostInputs[p] == null && !isDead(p)) paths++;
+		}
+		return paths;
+	}
+
+	public double getBestFitness() {
+		double best = 0;
+		for (int i = 0; i < populationSize; i++) {
+			best = Math.max(best, pool.getFitness(i));
+		}
+		return best;
+	}
+
+	//setters
+	public void setDedup(boolean dedup) {this.dedup = dedup;}
+	public void setGhosts(boolean ghosts) {this.ghosts = ghosts;}
+	//whether models and replays are saved at all, Config.saveWinner and Config.saveMostFitPerGen still pick which
+	public void setSaveModels(boolean saveModels) {this.saveModels = saveModels;}
+	public void setWinnerModelPath(String path) {winnerModelPath = path;}
+	public void setStopAtWinner(boolean stopAtWinner) {this.stopAtWinner = stopAtWinner;}	//off scores a run that finishes and plays on
+	public void setCache(FitnessCache cache) {this.cache = cache;}	//null turns caching off
+	public void setMaxTicks(int maxTicks) {this.maxTicks = maxTicks;}
+	public void setStallTicks(int stallTicks) {this.stallTicks = stallTicks;}
+	public void setCutoffFraction(double cutoffFraction) {this.cutoffFraction = cutoffFraction;}
+
+	//getters
+	public ArrayList<PlayerManager> getPlayers() {
+		if (players == null) {
+			createPlayers();
+			mirrorBatch();
+		}
+		return players;
+	}
+	public PlayerBatch getBatch() {return batch;}	//null without batch physics
+	public ArrayList<Orb> getOrbs() {return orbs;}
+	public ArrayList<Pad> getPads() {return pads;}
+	public ArrayList<GravityPortal> getGravityPortals() {return gportals;}
+	public ArrayList<Portal> getPortals() {return portals;}
+	public GenePool getGenePool() {return pool;}
+	public SensorTable getSensors() {return sensors;}
+	public FitnessCache getCache() {return cache;}
+	public DeathMap getDeathMap() {return deathMap;}
+	public boolean isDedup() {return dedup;}
+	public boolean isActive(int p) {return groupHead[p] != -1;}	//whether player manager p is simulating anything
+	public boolean isGhost(int p) {return ghostInputs[p] != null;}
+	public int getNumAlive() {return numAlive;}
+	public int getNumCached() {return numCached;}
+	public int getGeneration() {return generation;}
+	public long getSeed() {return geneticAlgorithm.getSeed();}
+	public String getLevelId() {return tileMap.getLevelId();}
+	public int getTick() {return tick;}
+	public long getAgentTicks() {return agentTicks;}
+	public long getPlayerTicks() {return playerTicks;}
+	public int getPopulationSize() {return populationSize;}
+	public double getLevelEnd() {return tileMap.getWidth() - 96;}	//x past which Player.atEndOfLevel is true
+	public boolean hasWinner() {return winner != -1;}
+	public String getEndReason() {return endReason;}
+	public WorldSnapshot getStart() {return start;}		//where the generation starts, or the next one once it is picked, null for the spawn
+	public double getCurriculumGoal() {return curriculumGoal;}
+	public int getGenerationsAtStart() {return generationsAtStart;}
+	public int getNumDeaths() {return numDeaths;}
+	public int getDeath(int i) {return deaths[i];}
+}
@@ -0,0 +1,47 @@
+package AI;
+
+import Entity.PlayerBatch;
+import Entity.PlayerManager;
+
+/* The state of a training run at one tick, so a generation can start from there instead of the spawn.
+* Everything in the world that changes while a level is played belongs to the player: the state of all five of its modes
+* (the inactive ones keep their own flags), its gravity and input timing, and which orbs and pads it has used.
+* The entities themselves never change, and the training camera is set from the leading player every frame, so the player is the whole world.
+* It is kept as a PlayerManager, or as the only player of a PlayerBatch with batch physics.
+*
+* A snapshot is made by playing a recorded input from its spawn, see TrainingSimulation.capture, and keeps that input
+* so runs that start from it can still be saved as replays from the spawn. */
+public class WorldSnapshot {
+	private Replay input;			//from the spawn up to the snapshot
+	private PlayerManager player;	//null with batch physics
+	private PlayerBatch batch;
+	private int x;
+	private int y;
+	private long stateHash;
+
+	WorldSnapshot(Replay input, PlayerManager player) {
+		this.input = input;
+		this.player = player;
+		x = player.getPlayer().getx();
+		y = player.getPlayer().gety();
+		stateHash = player.stateHash();
+	}
+
+	WorldSnapshot(Replay input, PlayerBatch batch) {
+		this.input = input;
+		this.batch = batch;
+		x = batch.getx(0);
+		y = batch.gety(0);
+		stateHash = batch.stateHash(0);
+	}
+
+	//puts the snapshot's state into a player manager, or into player i of a batch
+	void restore(PlayerManager pm) {pm.copyStateFrom(player);}
+	void restore(PlayerBatch b, int i) {b.copyState(batch, 0, i);}
+
+	public Replay getInput() {return input;}
+	public int getTick() {return input.getNumTicks();}
+	public int getx() {return x;}
+	public int gety() {return y;}
+	public long getStateHash() {return stateHash;}
+}
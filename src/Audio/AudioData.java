@@ -0,0 +1,59 @@
+package Audio;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+//a sound decoded to 16 bit pcm, every file is decoded once and then shared by all of its AudioPlayers
+//the cache only holds it softly, so the pcm of music no state plays any more can be collected when memory runs low and is decoded again if needed
+public class AudioData {
+	private static final ConcurrentHashMap<String, SoftReference<AudioData>> decoded = new ConcurrentHashMap<String, SoftReference<AudioData>>();
+
+	private AudioFormat format;
+	private byte[] bytes;
+
+	private AudioData(AudioFormat format, byte[] bytes) {
+		this.format = format;
+		this.bytes = bytes;
+	}
+
+	public static AudioData get(String path) throws IOException, UnsupportedAudioFileException {
+		SoftReference<AudioData> ref = decoded.get(path);
+		AudioData data = ref != null ? ref.get() : null;
+		if (data == null) {
+			data = decode(path);
+			decoded.put(path, new SoftReference<AudioData>(data));
+		}
+		return data;
+	}
+
+	private static AudioData decode(String path) throws IOException, UnsupportedAudioFileException {
+		InputStream resource = AudioData.class.getResourceAsStream(path);
+		if (resource == null) throw new IOException("No sound at " + path);
+		try (AudioInputStream ais = AudioSystem.getAudioInputStream(new BufferedInputStream(resource))) {
+			AudioFormat baseFormat = ais.getFormat();
+			AudioFormat decodeFormat = new AudioFormat(
+					AudioFormat.Encoding.PCM_UNSIGNED,
+					baseFormat.getSampleRate(),
+					16,
+					baseFormat.getChannels(),
+					baseFormat.getChannels() * 2,
+					baseFormat.getSampleRate(),
+					false
+					);
+			try (AudioInputStream dais = AudioSystem.getAudioInputStream(decodeFormat, ais)) {
+				return new AudioData(decodeFormat, dais.readAllBytes());
+			}
+		}
+	}
+
+	public AudioFormat getFormat() {return format;}
+	public byte[] getBytes() {return bytes;}	//shared, never written to
+}
@@ -7,24 +7,17 @@ public class AudioPlayer {
 	
 	private Clip clip;		//data type that stores audio
 	private int pausePosition;
+	private static volatile boolean muted;		//nothing starts playing, for rendering without sound
 	
+	//for subclasses that play their audio some other way
+	protected AudioPlayer() {}
+
 	public AudioPlayer(String s) {
 		try {
-			//sourcing and decoding audio file
-			AudioInputStream ais = AudioSystem.getAudioInputStream(getClass().getResourceAsStream(s));
-			AudioFormat baseFormat = ais.getFormat();
-			AudioFormat decodeFormat = new AudioFormat(
-					AudioFormat.Encoding.PCM_UNSIGNED, 
-					baseFormat.getSampleRate(), 
-					16, 
-					baseFormat.getChannels(), 
-					baseFormat.getChannels() * 2,
-					baseFormat.getSampleRate(),
-					false
-					);
-			AudioInputStream dais = AudioSystem.getAudioInputStream(decodeFormat, ais);
+			//the decoded sound is shared, each player only opens its own clip
+			AudioData data = AudioData.get(s);
 			clip = AudioSystem.getClip();
-			clip.open(dais);
+			clip.open(data.getFormat(), data.getBytes(), 0, data.getBytes().length);
 			pausePosition = 0;
 		}
 		catch (Exception e) {
@@ -32,21 +25,25 @@ public class AudioPlayer {
 		}
 	}
 	
+	public static void setMuted(boolean m) {muted = m;}
+	public static boolean isMuted() {return muted;}
+
 	public void play() {
-		if (clip == null) return;
+		if (clip == null || muted) return;
 		stop();
 		clip.setFramePosition(0);
 		clip.start();
 	}
 	
 	public void resume() {
-		if (clip == null) return;
+		if (clip == null || muted) return;
 		stop();
 		clip.setFramePosition(pausePosition);
 		clip.start();
 	}
 	
 	public void stop() {
+		if (clip == null) return;
 		if (clip.isRunning()) {
 			pausePosition = clip.getFramePosition();
 			clip.stop();
@@ -60,6 +57,7 @@ public class AudioPlayer {
 	}
 	
 	public void close() {
+		if (clip == null) return;
 		stop();
 		clip.close();
 	}
@@ -0,0 +1,142 @@
+package Audio;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.*;
+
+/* Audio player for music, which decodes the file as it plays instead of holding all of it as a Clip.
+* A playback thread decodes a small chunk at a time and writes it to a SourceDataLine, whose buffer holds the next quarter second or so,
+* so a track only ever takes a few kilobytes of memory and nothing is decoded before it starts playing.
+* Stopping remembers how far playback got, and resuming decodes from the start of the file again and skips up to that point.
+* Short sound effects should keep using AudioPlayer, where replaying the cached clip is instant. */
+public class StreamingAudioPlayer extends AudioPlayer {
+	private static final int CHUNK_BYTES = 4096;
+	private static final double LINE_SECONDS = 0.25;
+
+	private String path;
+	private Thread thread;
+	private volatile boolean playing;
+	private volatile SourceDataLine line;
+	private long pauseFrame;		//frame playback continues from on resume
+
+	public StreamingAudioPlayer(String s) {
+		path = s;
+		pauseFrame = 0;
+	}
+
+	@Override
+	public void play() {
+		stop();
+		pauseFrame = 0;
+		start();
+	}
+
+	@Override
+	public void resume() {
+		stop();
+		start();
+	}
+
+	//remembers the position, waits for the playback thread to finish
+	@Override
+	public void stop() {
+		if (thread == null) return;
+		playing = false;
+		SourceDataLine l = line;
+		if (l != null) {
+			l.stop();
+			l.flush();
+		}
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+	}
+
+	@Override
+	public void setZero() {
+		boolean wasPlaying = playing;
+		stop();
+		pauseFrame = 0;
+		if (wasPlaying) start();
+	}
+
+	@Override
+	public void close() {
+		stop();
+	}
+
+	private void start() {
+		if (isMuted()) return;
+		playing = true;
+		long fromFrame = pauseFrame;
+		thread = new Thread(() -> stream(fromFrame), "music " + path);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	//runs on the playback thread until the track ends or stop is called
+	private void stream(long fromFrame) {
+		InputStream resource = getClass().getResourceAsStream(path);
+		if (resource == null) {
+			System.out.println("No music at " + path);
+			playing = false;
+			return;
+		}
+		try (AudioInputStream ais = AudioSystem.getAudioInputStream(new BufferedInputStream(resource))) {
+			AudioFormat baseFormat = ais.getFormat();
+			AudioFormat decodeFormat = new AudioFormat(
+					AudioFormat.Encoding.PCM_UNSIGNED,
+					baseFormat.getSampleRate(),
+					16,
+					baseFormat.getChannels(),
+					baseFormat.getChannels() * 2,
+					baseFormat.getSampleRate(),
+					false
+					);
+			try (AudioInputStream dais = AudioSystem.getAudioInputStream(decodeFormat, ais)) {
+				int frameSize = decodeFormat.getFrameSize();
+				if (!skipFully(dais, fromFrame * frameSize)) return;	//stopped while skipping, pauseFrame is still fromFrame
+
+				SourceDataLine l = AudioSystem.getSourceDataLine(decodeFormat);
+				int lineBytes = Math.max(CHUNK_BYTES, (int)(decodeFormat.getFrameRate() * LINE_SECONDS) * frameSize);
+				l.open(decodeFormat, lineBytes);
+				line = l;
+				try {
+					if (!playing) return;	//stopped while opening
+					l.start();
+					byte[] chunk = new byte[CHUNK_BYTES - CHUNK_BYTES % frameSize];
+					int n;
+					while (playing && (n = dais.read(chunk, 0, chunk.length)) > 0) {
+						l.write(chunk, 0, n - n % frameSize);
+					}
+					if (playing) l.drain();
+				} finally {
+					pauseFrame = fromFrame + l.getLongFramePosition();
+					line = null;
+					l.close();
+				}
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		playing = false;
+	}
+
+	//decodes and throws away, skip on a decoded mp3 stream skips by the encoded bytes and lands in the wrong place
+	//a chunk at a time, so stop does not have to wait for the whole skip, false if it was stopped before the end
+	private boolean skipFully(AudioInputStream in, long bytes) throws IOException {
+		byte[] discard = new byte[CHUNK_BYTES - CHUNK_BYTES % in.getFormat().getFrameSize()];
+		while (bytes > 0) {
+			if (!playing) return false;
+			int n = in.read(discard, 0, (int)Math.min(discard.length, bytes));
+			if (n <= 0) break;
+			bytes -= n;
+		}
+		return playing;
+	}
+}
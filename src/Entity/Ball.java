@@ -2,8 +2,6 @@ package Entity;
 
 import java.awt.image.BufferedImage;
 
-import javax.imageio.ImageIO;
-
 import TileMap.TileMap;
 
 //the ball player mode
@@ -19,7 +17,7 @@ public class Ball extends Player{
 		cheight = 32;
 
 		try {
-			BufferedImage spritesheet = ImageIO.read(getClass().getResourceAsStream("/Sprites/ball.png")); //load its sprite
+			BufferedImage spritesheet = Sprites.get("/Sprites/ball.png"); //load its sprite
 			sprites = new BufferedImage[3];
 			for (int i = 0; i < sprites.length; i++) {
 				sprites[i] = spritesheet.getSubimage(i * width, 0, width, height);
@@ -1,7 +1,6 @@
 package Entity;
 
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
 import TileMap.*;
 
 //cube player mode
@@ -17,7 +16,7 @@ public class Cube extends Player{
 		cheight = 32;
 
 		try {
-			BufferedImage spritesheet = ImageIO.read(getClass().getResourceAsStream("/Sprites/cube.png"));
+			BufferedImage spritesheet = Sprites.get("/Sprites/cube.png");
 			sprites = new BufferedImage[1];
 			sprites[0] = spritesheet;
 		}
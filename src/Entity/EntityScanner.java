@@ -0,0 +1,56 @@
+package Entity;
+
+import java.util.ArrayList;
+
+import TileMap.TileMap;
+
+//creates the level's entities from its tilemap, shared by the game modes and the headless training simulation
+public class EntityScanner {
+	//scans the level map for entities and adds them to the given arraylists
+	//check TileMap class for better understanding
+	public static void scan(TileMap tileMap, byte[][] map, ArrayList<Orb> orbs, ArrayList<Pad> pads, ArrayList<GravityPortal> gportals, ArrayList<Portal> portals) {
+		spawn(tileMap, find(map, tileMap.getTileSize()), orbs, pads, gportals, portals);
+	}
+
+	//every entity in the map as {tile code, x, y} in world coordinates, column by column, so it can be stored with a compiled level
+	public static int[][] find(byte[][] map, int tileSize) {
+		return find(map, tileSize, 0, map[0].length);
+	}
+
+	//the same for the columns [fromCol, toCol) only, for a level that is written a few columns at a time
+	public static int[][] find(byte[][] map, int tileSize, int fromCol, int toCol) {
+		ArrayList<int[]> entities = new ArrayList<int[]>();
+		for (int i = fromCol; i < toCol; i++) {
+			for (int j = 0; j < map.length - 2; j++) {
+				int rc = map[j][i];
+				if (rc >= TileMap.JO && rc <= TileMap.GH) {
+					//pads sit on the bottom of their tile
+					int y = rc == TileMap.JP || rc == TileMap.FP ? j * tileSize + 28 : j * tileSize + 16;
+					entities.add(new int[]{rc, i * tileSize + 16, y});
+				}
+			}
+		}
+		return entities.toArray(new int[0][]);
+	}
+
+	//creates the entities found by find and adds them to the given arraylists
+	public static void spawn(TileMap tileMap, int[][] entities, ArrayList<Orb> orbs, ArrayList<Pad> pads, ArrayList<GravityPortal> gportals, ArrayList<Portal> portals) {
+		for (int[] e : entities) {
+			int rc = e[0];
+			int x = e[1];
+			int y = e[2];
+			if (rc == TileMap.JO) orbs.add(new Orb(tileMap, x, y, Orb.JUMP));
+			else if (rc == TileMap.BO) orbs.add(new Orb(tileMap, x, y, Orb.GRAVITY));
+			else if (rc == TileMap.JP) pads.add(new Pad(tileMap, x, y, Pad.JUMP));
+			else if (rc == TileMap.FP) pads.add(new Pad(tileMap, x, y, Pad.GRAVITY));
+			else if (rc == TileMap.NP) gportals.add(new GravityPortal(tileMap, x, y, GravityPortal.NORMAL));
+			else if (rc == TileMap.GP) gportals.add(new GravityPortal(tileMap, x, y, GravityPortal.REVERSED));
+			else if (rc == TileMap.CP) portals.add(new Portal(tileMap, x, y, Portal.CUBE));
+			else if (rc == TileMap.SP) portals.add(new Portal(tileMap, x, y, Portal.SHIP));
+			else if (rc == TileMap.BP) portals.add(new Portal(tileMap, x, y, Portal.BALL));
+			else if (rc == TileMap.WP) portals.add(new Portal(tileMap, x, y, Portal.WAVE));
+			else if (rc == TileMap.NH) gportals.add(new GravityPortal(tileMap, x, y, GravityPortal.NORMALH));
+			else if (rc == TileMap.GH) gportals.add(new GravityPortal(tileMap, x, y, GravityPortal.REVERSEDH));
+		}
+	}
+}
@@ -2,7 +2,6 @@ package Entity;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
 
 //explosion class to display death explosions
 //it does not inherit game object because it has no real interactions with the game
@@ -30,7 +29,7 @@ public class Explosion {
 		opacity = 1.0f;
 
 		try {
-			BufferedImage spritesheet = ImageIO.read(getClass().getResourceAsStream("/Sprites/explosion.png"));
+			BufferedImage spritesheet = Sprites.get("/Sprites/explosion.png");
 			sprites = new BufferedImage[spritesheet.getWidth()/width];
 			for(int i = 0; i < sprites.length; i++) {
 				sprites[i] = spritesheet.getSubimage(i * width, 0, width, height);
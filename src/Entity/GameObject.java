@@ -68,12 +68,19 @@ public abstract class GameObject {
 	}
 	
 	public void draw(Graphics2D g) {
+		draw(g, animation.getImage());
+	}
+
+	//draws another image in place of the current frame, such as a faded copy of it
+	public void draw(Graphics2D g, BufferedImage image) {
 		setMapPosition();
 		if (gravity == 1) {		//flips the sprite upside down depending on the gravity
-			g.drawImage(animation.getImage(), (int)(x + xmap - width / 2), (int)(y + ymap - height / 2), width, height, null);
+			g.drawImage(image, (int)(x + xmap - width / 2), (int)(y + ymap - height / 2), width, height, null);
 		}
 		else {
-			g.drawImage(animation.getImage(), (int)(x + xmap - width / 2), (int)(y + ymap + height / 2), width, -height, null);
+			g.drawImage(image, (int)(x + xmap - width / 2), (int)(y + ymap + height / 2), width, -height, null);
 		}
 	}
+
+	public BufferedImage getImage() {return animation.getImage();}
 }
@@ -2,8 +2,6 @@ package Entity;
 
 import java.awt.image.BufferedImage;
 
-import javax.imageio.ImageIO;
-
 import TileMap.TileMap;
 
 public class GravityPortal extends GameObject{
@@ -33,7 +31,7 @@ public class GravityPortal extends GameObject{
 			cheight = 75;
 		}
 		try {
-			BufferedImage spritesheet = ImageIO.read(getClass().getResourceAsStream("/Sprites/gravityportals.png"));
+			BufferedImage spritesheet = Sprites.get("/Sprites/gravityportals.png");
 			sprites = new BufferedImage[4];
 			for (int i = 0; i < 2; i++) {
 				sprites[i] = spritesheet.getSubimage(0, spritesheet.getHeight() - (i + 1) * 93, 37, 93);
@@ -3,8 +3,6 @@ package Entity;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 
-import javax.imageio.ImageIO;
-
 import TileMap.TileMap;
 
 public class Orb extends GameObject{
@@ -31,7 +29,7 @@ public class Orb extends GameObject{
 		cheight = 32;
 		
 		try {
-			BufferedImage spritesheet = ImageIO.read(getClass().getResourceAsStream("/Sprites/orbs.png"));
+			BufferedImage spritesheet = Sprites.get("/Sprites/orbs.png");
 			sprites = new ArrayList<BufferedImage[]>();
 			for (int i = 0; i < spritesheet.getHeight() / 32; i++) {
 				BufferedImage[] bi = new BufferedImage[spritesheet.getWidth() / 32];
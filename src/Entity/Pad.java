@@ -2,8 +2,6 @@ package Entity;
 
 import java.awt.image.BufferedImage;
 
-import javax.imageio.ImageIO;
-
 import TileMap.TileMap;
 
 public class Pad extends GameObject{
@@ -28,7 +26,7 @@ public class Pad extends GameObject{
 		cheight = 16;
 		
 		try {
-			BufferedImage spritesheet = ImageIO.read(getClass().getResourceAsStream("/Sprites/pads.png"));
+			BufferedImage spritesheet = Sprites.get("/Sprites/pads.png");
 			sprites = new BufferedImage[2];
 			for (int i = 0; i < sprites.length; i++) {
 				sprites[i] = spritesheet.getSubimage(i * width, 0, width, height);
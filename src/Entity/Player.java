@@ -4,6 +4,16 @@ import TileMap.*;
 
 //abstract subclass of game object specifically for the player
 public abstract class Player extends GameObject{
+	//bump whenever movement or collision rules change, recorded runs from other versions will not play back the same
+	public static final int PHYSICS_VERSION = 1;
+	
+	//what a player died on, see getDeathCause
+	public static final int DIED_ON_SPIKE = 0;		//spikes and thorns
+	public static final int DIED_ON_RAMP = 1;
+	public static final int DIED_ON_BLOCK = 2;		//running or jumping into one, or touching one as the wave
+	public static final int DIED_OUT_OF_BOUNDS = 3;
+	public static final int NUM_DEATH_CAUSES = 4;
+	public static final String[] DEATH_CAUSES = {"spike", "ramp", "block", "out of bounds"};
 	
 	protected PlayerManager pm;		//a handler for the 4 different player modes
 	
@@ -13,7 +23,7 @@ public abstract class Player extends GameObject{
 	protected boolean jumping;
 	protected boolean firstClick;	//these variables are for determining whether the player is clicking or holding
 	protected boolean firstJump;
-	protected long firstClickTime;
+	protected long firstClickTime;	//System.nanoTime() for keyboard input, tick number for AI input (see PlayerManager.setJumpInput)
 
 	//movement attributes
 	protected double dx;
@@ -39,6 +49,7 @@ public abstract class Player extends GameObject{
 	protected boolean bottomRight;	
 	
 	protected boolean dead;
+	protected int deathCause;		//only meaningful while dead
 
 	public Player(TileMap tm, PlayerManager pm) {
 		super(tm);
@@ -65,6 +76,12 @@ public abstract class Player extends GameObject{
 		bottomRight = br == Tile.BLOCKED;
 	}
 	
+	//the first thing the player runs into in a tick is what it died on
+	private void die(int cause) {
+		if (!dead) deathCause = cause;
+		dead = true;
+	}
+	
 	//calculations for interacting with the map
 	public void checkTileMapCollision() {
 		currCol = (int)x / tileSize;
@@ -84,65 +101,65 @@ public abstract class Player extends GameObject{
 		calculateCorners(xdest, ydest);
 		if (br == Tile.SPIKE || bl == Tile.SPIKE) {
 			if (bottom >= leftSlopeSpike(xdest, ydest) && bottom >= rightSlopeSpike(xdest, ydest)) {
-				dead = true;
+				die(DIED_ON_SPIKE);
 			}
 		}
 		
 		if (br == Tile.THORN || bl == Tile.THORN) {
 			if (bottom >= leftSlopeThorn(xdest, ydest) && bottom >= rightSlopeThorn(xdest,ydest)) {
-				dead = true;
+				die(DIED_ON_SPIKE);
 			}
 		}
 		
 		if (tr == Tile.FLIPSPIKE || tl == Tile.FLIPSPIKE) {
 			if (top <= leftSlopeFlipSpike(xdest, ydest) && top <= rightSlopeFlipSpike(xdest, ydest)) {
-				dead = true;
+				die(DIED_ON_SPIKE);
 			}
 		}
 		
 		if (br == Tile.LEFTRAMP) {
 			if (bottom >= leftSlopeRamp(xdest, ydest)) {
-				dead = true;
+				die(DIED_ON_RAMP);
 			}
 		}
 		if (bl == Tile.RIGHTRAMP) {
 			if (bottom >= rightSlopeRamp(xdest, ydest)) {
-				dead = true;
+				die(DIED_ON_RAMP);
 			}
 		}
 		if (tr == Tile.FLIPLEFTRAMP) {
 			if (top <= leftSlopeFlipRamp(xdest, ydest)) {
-				dead = true;
+				die(DIED_ON_RAMP);
 			}
 		}
 		if (tl == Tile.FLIPRIGHTRAMP) {
 			if (top <= rightSlopeFlipRamp(xdest, ydest)) {
-				dead = true;
+				die(DIED_ON_RAMP);
 			}
 		}
 		
 		if (br == Tile.MINIRAMP || bl == Tile.MINIRAMP) {
 			if (bottom >= leftSlopeMiniRamp(xdest, ydest) && bottom >= rightSlopeMiniRamp(xdest, ydest)) {
-				dead = true;
+				die(DIED_ON_RAMP);
 			}
 		}
 		
 		if (tr == Tile.FLIPMINIRAMP || tl == Tile.FLIPMINIRAMP) {
 			if (top <= leftSlopeFlipMiniRamp(xdest, ydest) && top <= rightSlopeFlipMiniRamp(xdest, ydest)) {
-				dead = true;
+				die(DIED_ON_RAMP);
 			}
 		}
 		
 		if (br == Tile.VRAMP || bl == Tile.VRAMP || tr == Tile.VRAMP || tl == Tile.VRAMP) {
-			dead = true;
+			die(DIED_ON_RAMP);
 		}
 		
 		if (this instanceof Wave && (topLeft || topRight || bottomLeft || bottomRight)) {
-			dead = true;
+			die(DIED_ON_BLOCK);
 		}
 		
 		if (xdest > tileMap.getWidth() || xdest < 0 || ydest > tileMap.getHeight() || ydest < 0){
-			dead = true;
+			die(DIED_OUT_OF_BOUNDS);
 		}
 		
 		if (dead) return;
@@ -153,7 +170,7 @@ public abstract class Player extends GameObject{
 		if (dy < 0) {
 			if (topLeft || topRight) {
 				if (gravity == -1) falling = false;			//if gravity is reversed, then upwards is where the player lands
-				else if (this instanceof Cube) dead = true;		//the cube dies when jumping into blocks
+				else if (this instanceof Cube) die(DIED_ON_BLOCK);		//the cube dies when jumping into blocks
 				dy = 0;
 				ytemp = currRow * tileSize + cheight / 2;
 			}
@@ -164,7 +181,7 @@ public abstract class Player extends GameObject{
 		if (dy > 0) {
 			if (bottomLeft || bottomRight) {
 				if (gravity == 1) falling = false;
-				else if (this instanceof Cube) dead = true;
+				else if (this instanceof Cube) die(DIED_ON_BLOCK);
 				dy = 0;
 				ytemp = (currRow + 1) * tileSize - cheight / 2;
 			}
@@ -178,7 +195,7 @@ public abstract class Player extends GameObject{
 			calculateCorners(xdest, y);
 			if (dx > 0) {
 				if (topRight || bottomRight) {
-					dead = true;		//running into a block will kill the player
+					die(DIED_ON_BLOCK);		//running into a block will kill the player
 				}
 				else {
 					xtemp += dx;
@@ -261,6 +278,54 @@ public abstract class Player extends GameObject{
 	//different modes have different actions so it is abstract method
 	public abstract void getNextPosition();
 	
+	//put the player back in the state it spawns in, used when a player manager is reused for a new attempt
+	public void respawn() {
+		dy = 0;
+		falling = false;
+		jumping = false;
+		dead = false;
+		setGravity(1);		//also resets the movement attributes through initValues
+	}
+	
+	//copy everything that affects how the player moves from here on, used to fork a simulated trajectory
+	public void copyStateFrom(Player o) {
+		x = o.x;
+		y = o.y;
+		dx = o.dx;
+		dy = o.dy;
+		gravity = o.gravity;
+		fallSpeed = o.fallSpeed;
+		maxFallSpeed = o.maxFallSpeed;
+		jumpSpeed = o.jumpSpeed;
+		moving = o.moving;
+		falling = o.falling;
+		jumping = o.jumping;
+		firstClick = o.firstClick;
+		firstJump = o.firstJump;
+		firstClickTime = o.firstClickTime;
+		dead = o.dead;
+		deathCause = o.deathCause;
+	}
+	
+	public boolean sameState(Player o) {
+		return x == o.x && y == o.y && dx == o.dx && dy == o.dy && gravity == o.gravity
+			&& fallSpeed == o.fallSpeed && maxFallSpeed == o.maxFallSpeed && jumpSpeed == o.jumpSpeed
+			&& moving == o.moving && falling == o.falling && jumping == o.jumping
+			&& firstClick == o.firstClick && firstJump == o.firstJump && firstClickTime == o.firstClickTime && dead == o.dead;
+	}
+	
+	public long stateHash() {
+		long h = Double.doubleToLongBits(x);
+		h = h * 31 + Double.doubleToLongBits(y);
+		h = h * 31 + Double.doubleToLongBits(dx);
+		h = h * 31 + Double.doubleToLongBits(dy);
+		h = h * 31 + Double.doubleToLongBits(jumpSpeed);
+		h = h * 31 + gravity;
+		h = h * 31 + firstClickTime;
+		h = h * 31 + ((moving ? 1 : 0) | (falling ? 2 : 0) | (jumping ? 4 : 0) | (firstClick ? 8 : 0) | (firstJump ? 16 : 0) | (dead ? 32 : 0));
+		return h;
+	}
+	
 	//different modes have different attributes so it is abstract method
 	public void initValues() {
 		moving = true;
@@ -304,6 +369,7 @@ public abstract class Player extends GameObject{
 	public void setMoveSpeed(int dx) {this.dx = dx;}
 	public boolean isDead() {return dead;}
 	public void setDead(boolean b) {dead = b;}
+	public int getDeathCause() {return deathCause;}
 	public int getGravity() {return gravity;}
 	public void setDY(double v) {dy = v;}
 	public double getDY() {return dy;}
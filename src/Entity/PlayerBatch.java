@@ -0,0 +1,755 @@
+package Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import TileMap.Tile;
+import TileMap.TileMap;
+
+/* The physics of many players at once, kept in parallel arrays instead of a PlayerManager with five Player objects each.
+* The rules are copied from Cube/Ship/Ball/Wave.getNextPosition(), Player.checkTileMapCollision() and the way training lets players
+* interact with orbs, pads and portals, so player i moves exactly like a PlayerManager given the same inputs, tick for tick.
+* Anything changed in those classes that affects movement has to be changed here too (and Player.PHYSICS_VERSION bumped).
+*
+* Per player: mode, position, vector, gravity, dead and what it died on, the number of inputs given and which orbs and pads it has used.
+* Like the Player objects of a PlayerManager, every mode keeps its own falling/jumping/click/moving flags while it is not the current one,
+* they are stored per player and mode at [player * NUM_MODES + mode]. */
+public final class PlayerBatch {
+	public static final int NUM_MODES = 5;
+
+	//per mode flags
+	private static final byte FALLING = 1;
+	private static final byte JUMPING = 2;
+	private static final byte FIRST_CLICK = 4;
+	private static final byte FIRST_JUMP = 8;
+	private static final byte MOVING = 16;
+
+	private int size;
+
+	//per player
+	private byte[] mode;
+	private double[] x;
+	private double[] y;
+	private double[] dx;
+	private double[] dy;
+	private byte[] gravity;
+	private boolean[] dead;
+	private byte[] deathCause;		//a Player.DIED_ constant
+	private long[] inputTicks;
+	private long[] triggers;		//orbs first, then pads from padTriggers on, triggerWords longs per player
+	private int triggerWords;
+	private int padTriggers;		//trigger of the first pad
+	private int numTriggers;
+
+	//per player and mode
+	private byte[] flags;
+	private long[] firstClickTime;
+
+	//per mode attributes, read from the player classes with normal gravity
+	private double[] fallSpeed = new double[NUM_MODES];
+	private double[] maxFallSpeed = new double[NUM_MODES];
+	private double[] jumpSpeed = new double[NUM_MODES];
+	private double[] moveSpeed = new double[NUM_MODES];
+	private int[] cwidth = new int[NUM_MODES];
+	private int[] cheight = new int[NUM_MODES];
+	private boolean[] resetsOnNormalGravity = new boolean[NUM_MODES];	//whether setGravity(1) calls an initValues that resets speed and moving
+	private int maxPlayerWidth;
+
+	//level
+	private byte[][] types;			//tile type of every map cell
+	private int tileSize;
+	private int mapWidth;
+	private int mapHeight;
+	private ArrayList<Orb> orbs;
+	private ArrayList<Pad> pads;
+	private ArrayList<GravityPortal> gportals;
+	private ArrayList<Portal> portals;
+	private int[][] orbBoxes;		//{x, y, width, height, type} of every entity's collision box, as GameObject.intersects sees it
+	private int[][] padBoxes;
+	private int[][] gportalBoxes;
+	private int[][] portalBoxes;
+	private boolean boxesSorted;	//whether every list is in order of right edge, as EntityScanner creates them, so only nearby entities need checking
+	private int maxBoxWidth;
+
+	//corners of the last calculateCorners call
+	private int tl;
+	private int tr;
+	private int bl;
+	private int br;
+	private boolean topLeft;
+	private boolean topRight;
+	private boolean bottomLeft;
+	private boolean bottomRight;
+
+	//what the player being moved ran into first this tick, -1 for nothing
+	private int cause;
+
+	//the tilemap has to be loaded already
+	public PlayerBatch(TileMap tm, int size, ArrayList<Orb> orbs, ArrayList<Pad> pads, ArrayList<GravityPortal> gportals, ArrayList<Portal> portals) {
+		this(tm, size, orbs, pads, gportals, portals, orbs.size(), pads.size());
+	}
+
+	//for a level whose entities are added to the lists while it is played, such as a TileMap.GeneratedLevel:
+	//triggers are numbered with room for maxOrbs orbs and maxPads pads, so updateEntities never moves the ones players have used
+	public PlayerBatch(TileMap tm, int size, ArrayList<Orb> orbs, ArrayList<Pad> pads, ArrayList<GravityPortal> gportals, ArrayList<Portal> portals, int maxOrbs, int maxPads) {
+		this.size = size;
+		tileSize = tm.getTileSize();
+		mapWidth = tm.getWidth();
+		mapHeight = tm.getHeight();
+		if (tm.getCompiledLevel() != null) types = tm.getCompiledLevel().getTypes();	//shared, a compiled level's tiles only change if it is generated as it is played
+		else {
+			byte[][] map = tm.getMap();
+			types = new byte[map.length][map[0].length];
+			for (int row = 0; row < map.length; row++) {
+				for (int col = 0; col < map[row].length; col++) {
+					types[row][col] = (byte)tm.getType(row, col);
+				}
+			}
+		}
+
+		this.orbs = orbs;
+		this.pads = pads;
+		this.gportals = gportals;
+		this.portals = portals;
+		padTriggers = maxOrbs;
+		numTriggers = maxOrbs + maxPads;
+		updateEntities();
+
+		//take the attributes of every mode from its class, so they cannot drift apart
+		Player[] templates = new Player[NUM_MODES];
+		templates[PlayerManager.CUBE] = new Cube(tm, null);
+		templates[PlayerManager.SHIP] = new Ship(tm, null);
+		templates[PlayerManager.UFO] = new UFO(tm, null);
+		templates[PlayerManager.WAVE] = new Wave(tm, null);
+		templates[PlayerManager.BALL] = new Ball(tm, null);
+		for (int m = 0; m < NUM_MODES; m++) {
+			fallSpeed[m] = templates[m].fallSpeed;
+			maxFallSpeed[m] = templates[m].maxFallSpeed;
+			jumpSpeed[m] = templates[m].jumpSpeed;
+			moveSpeed[m] = templates[m].dx;
+			cwidth[m] = templates[m].cwidth;
+			cheight[m] = templates[m].cheight;
+			resetsOnNormalGravity[m] = !(templates[m] instanceof UFO);
+			maxPlayerWidth = Math.max(maxPlayerWidth, cwidth[m]);
+		}
+
+		mode = new byte[size];
+		x = new double[size];
+		y = new double[size];
+		dx = new double[size];
+		dy = new double[size];
+		gravity = new byte[size];
+		dead = new boolean[size];
+		deathCause = new byte[size];
+		inputTicks = new long[size];
+		triggerWords = (numTriggers + 63) / 64;
+		triggers = new long[size * triggerWords];
+		flags = new byte[size * NUM_MODES];
+		firstClickTime = new long[size * NUM_MODES];
+	}
+
+	//reads the entity lists again, after entities were added to them or they were refilled
+	public void updateEntities() {
+		if (orbs.size() > padTriggers || padTriggers + pads.size() > numTriggers) throw new IllegalStateException("More orbs or pads than there are triggers for");
+		orbBoxes = new int[orbs.size()][];
+		for (int j = 0; j < orbs.size(); j++) orbBoxes[j] = box(orbs.get(j), orbs.get(j).getType());
+		padBoxes = new int[pads.size()][];
+		for (int j = 0; j < pads.size(); j++) padBoxes[j] = box(pads.get(j), pads.get(j).getType());
+		gportalBoxes = new int[gportals.size()][];
+		for (int j = 0; j < gportals.size(); j++) gportalBoxes[j] = box(gportals.get(j), gportals.get(j).getType());
+		portalBoxes = new int[portals.size()][];
+		for (int j = 0; j < portals.size(); j++) portalBoxes[j] = box(portals.get(j), portals.get(j).getType());
+		boxesSorted = sorted(orbBoxes) && sorted(padBoxes) && sorted(gportalBoxes) && sorted(portalBoxes);
+		maxBoxWidth = 0;
+		for (int[][] boxes : new int[][][]{orbBoxes, padBoxes, gportalBoxes, portalBoxes}) {
+			for (int[] b : boxes) maxBoxWidth = Math.max(maxBoxWidth, b[2]);
+		}
+	}
+
+	private static int[] box(GameObject o, int type) {
+		return new int[]{o.getx() - o.getCWidth(), o.gety() - o.getCHeight(), o.getCWidth(), o.getCHeight(), type};
+	}
+
+	private static boolean sorted(int[][] boxes) {
+		for (int j = 1; j < boxes.length; j++) {
+			if (boxes[j][0] + boxes[j][2] < boxes[j-1][0] + boxes[j-1][2]) return false;
+		}
+		return true;
+	}
+
+	//first entity whose box could reach past px, entities are still checked in list order
+	private int firstCandidate(int[][] boxes, int px) {
+		if (!boxesSorted) return 0;
+		int lo = 0;
+		int hi = boxes.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (boxes[mid][0] + boxes[mid][2] <= px) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	//true once no entity from box j on can reach the player any more
+	private boolean pastCandidates(int[] box, int px, int w) {
+		return boxesSorted && box[0] + box[2] >= px + w + maxBoxWidth;
+	}
+
+	//puts player i in the state a PlayerManager is in after init() and resetTriggers(), with its cube at x, y
+	public void spawn(int i, double x, double y) {
+		mode[i] = PlayerManager.CUBE;
+		this.x[i] = x;
+		this.y[i] = y;
+		dx[i] = moveSpeed[PlayerManager.CUBE];
+		dy[i] = 0;
+		gravity[i] = 1;
+		dead[i] = false;
+		inputTicks[i] = 0;
+		for (int m = 0; m < NUM_MODES; m++) {
+			flags[i * NUM_MODES + m] = FIRST_CLICK | MOVING;
+			firstClickTime[i * NUM_MODES + m] = 0;
+		}
+		Arrays.fill(triggers, i * triggerWords, (i + 1) * triggerWords, 0);
+	}
+
+	//movement attributes of the current mode, as updateGravity leaves them
+	private double fallSpeed(int m, int g) {return g == 1 ? fallSpeed[m] : -Math.abs(fallSpeed[m]);}
+	private double maxFallSpeed(int m, int g) {return g == 1 ? maxFallSpeed[m] : -Math.abs(maxFallSpeed[m]);}
+	private double jumpSpeed(int m, int g) {return g == 1 ? -Math.abs(jumpSpeed[m]) : Math.abs(jumpSpeed[m]);}
+
+	private boolean is(int f, byte flag) {return (flags[f] & flag) != 0;}
+	private void set(int f, byte flag, boolean b) {
+		if (b) flags[f] |= flag;
+		else flags[f] = (byte)(flags[f] & ~flag);
+	}
+
+	//updates the players listed in ids[0..n), the same as PlayerManager.update() on each of them
+	public void update(int[] ids, int n) {
+		for (int k = 0; k < n; k++) {
+			update(ids[k]);
+		}
+	}
+
+	public void update(int i) {
+		getNextPosition(i);
+		checkTileMapCollision(i);
+	}
+
+	private void getNextPosition(int i) {
+		int m = mode[i];
+		int f = i * NUM_MODES + m;
+		boolean jumping = is(f, JUMPING);
+
+		if (m == PlayerManager.CUBE) {
+			if (jumping && !is(f, FALLING)) {
+				dy[i] = jumpSpeed(m, gravity[i]);
+				set(f, FALLING, true);
+			}
+		}
+		else if (m == PlayerManager.SHIP) {
+			if (jumping) {
+				double mfs = maxFallSpeed(m, gravity[i]);
+				dy[i] += -fallSpeed(m, gravity[i]);
+				if (gravity[i] == 1) {
+					if (dy[i] < -mfs) dy[i] = -mfs;
+				}
+				else {
+					if (dy[i] > -mfs) dy[i] = -mfs;
+				}
+				set(f, FALLING, false);
+			}
+		}
+		else if (m == PlayerManager.BALL) {
+			if (jumping && is(f, FIRST_JUMP) && !is(f, FALLING)) {
+				flipGravity(i);
+				set(f, FALLING, true);
+			}
+		}
+		else if (m == PlayerManager.WAVE) {
+			if (jumping) {
+				dy[i] = -fallSpeed(m, gravity[i]);
+				set(f, FALLING, false);
+			}
+			if (is(f, FALLING)) dy[i] = fallSpeed(m, gravity[i]);
+			return;
+		}
+		else return;	//the UFO does nothing
+
+		//falling
+		if (is(f, FALLING)) {
+			double mfs = maxFallSpeed(m, gravity[i]);
+			dy[i] += fallSpeed(m, gravity[i]);
+			if (gravity[i] == 1) {
+				if (dy[i] > mfs) dy[i] = mfs;
+			}
+			else {
+				if (dy[i] < mfs) dy[i] = mfs;
+			}
+		}
+	}
+
+	private void calculateCorners(double x, double y, int cwidth, int cheight) {
+		int leftTile = (int)(x - cwidth / 2) / tileSize;
+		int rightTile = (int)(x + cwidth / 2 - 1) / tileSize;
+		int topTile = (int)(y - cheight / 2) / tileSize;
+		int bottomTile = (int)(y + cheight / 2- 1) / tileSize;
+
+		tl = types[topTile][leftTile];
+		tr = types[topTile][rightTile];
+		bl = types[bottomTile][leftTile];
+		br = types[bottomTile][rightTile];
+
+		topLeft = tl == Tile.BLOCKED;
+		topRight = tr == Tile.BLOCKED;
+		bottomLeft = bl == Tile.BLOCKED;
+		bottomRight = br == Tile.BLOCKED;
+	}
+
+	//the first thing the player runs into in a tick is what it died on, see Player.die
+	private boolean die(int c) {
+		if (cause == -1) cause = c;
+		return true;
+	}
+
+	private void checkTileMapCollision(int i) {
+		int m = mode[i];
+		int f = i * NUM_MODES + m;
+		int cw = cwidth[m];
+		int ch = cheight[m];
+		int g = gravity[i];
+		int currRow = (int)y[i] / tileSize;
+
+		double xdest = x[i] + dx[i];
+		double ydest = y[i] + dy[i];
+		double xtemp = x[i];
+		double ytemp = y[i];
+
+		double bottom = ydest + ch / 2 - 1;
+		double top = ydest - ch / 2;
+
+		//special tiles, see Player.checkTileMapCollision
+		boolean d = dead[i];
+		cause = -1;
+		calculateCorners(xdest, ydest, cw, ch);
+		if (br == Tile.SPIKE || bl == Tile.SPIKE) {
+			if (bottom >= leftSlopeSpike(xdest, ydest, cw, ch) && bottom >= rightSlopeSpike(xdest, ydest, cw, ch)) d = die(Player.DIED_ON_SPIKE);
+		}
+		if (br == Tile.THORN || bl == Tile.THORN) {
+			if (bottom >= leftSlopeThorn(xdest, ydest, cw, ch) && bottom >= rightSlopeThorn(xdest, ydest, cw, ch)) d = die(Player.DIED_ON_SPIKE);
+		}
+		if (tr == Tile.FLIPSPIKE || tl == Tile.FLIPSPIKE) {
+			if (top <= leftSlopeFlipSpike(xdest, ydest, cw, ch) && top <= rightSlopeFlipSpike(xdest, ydest, cw, ch)) d = die(Player.DIED_ON_SPIKE);
+		}
+		if (br == Tile.LEFTRAMP) {
+			if (bottom >= leftSlopeRamp(xdest, ydest, cw, ch)) d = die(Player.DIED_ON_RAMP);
+		}
+		if (bl == Tile.RIGHTRAMP) {
+			if (bottom >= rightSlopeRamp(xdest, ydest, cw, ch)) d = die(Player.DIED_ON_RAMP);
+		}
+		if (tr == Tile.FLIPLEFTRAMP) {
+			if (top <= leftSlopeFlipRamp(xdest, ydest, cw, ch)) d = die(Player.DIED_ON_RAMP);
+		}
+		if (tl == Tile.FLIPRIGHTRAMP) {
+			if (top <= rightSlopeFlipRamp(xdest, ydest, cw, ch)) d = die(Player.DIED_ON_RAMP);
+		}
+		if (br == Tile.MINIRAMP || bl == Tile.MINIRAMP) {
+			if (bottom >= leftSlopeMiniRamp(xdest, ydest, cw, ch) && bottom >= rightSlopeMiniRamp(xdest, ydest, cw, ch)) d = die(Player.DIED_ON_RAMP);
+		}
+		if (tr == Tile.FLIPMINIRAMP || tl == Tile.FLIPMINIRAMP) {
+			if (top <= leftSlopeFlipMiniRamp(xdest, ydest, cw, ch) && top <= rightSlopeFlipMiniRamp(xdest, ydest, cw, ch)) d = die(Player.DIED_ON_RAMP);
+		}
+		if (br == Tile.VRAMP || bl == Tile.VRAMP || tr == Tile.VRAMP || tl == Tile.VRAMP) d = die(Player.DIED_ON_RAMP);
+		if (m == PlayerManager.WAVE && (topLeft || topRight || bottomLeft || bottomRight)) d = die(Player.DIED_ON_BLOCK);
+		if (xdest > mapWidth || xdest < 0 || ydest > mapHeight || ydest < 0) d = die(Player.DIED_OUT_OF_BOUNDS);
+
+		if (d) {
+			dead[i] = true;
+			if (cause != -1) deathCause[i] = (byte)cause;
+			return;
+		}
+
+		//vertically
+		calculateCorners(x[i], ydest, cw, ch);
+		if (dy[i] < 0) {
+			if (topLeft || topRight) {
+				if (g == -1) set(f, FALLING, false);
+				else if (m == PlayerManager.CUBE) d = die(Player.DIED_ON_BLOCK);
+				dy[i] = 0;
+				ytemp = currRow * tileSize + ch / 2;
+			}
+			else {
+				ytemp += dy[i];
+			}
+		}
+		if (dy[i] > 0) {
+			if (bottomLeft || bottomRight) {
+				if (g == 1) set(f, FALLING, false);
+				else if (m == PlayerManager.CUBE) d = die(Player.DIED_ON_BLOCK);
+				dy[i] = 0;
+				ytemp = (currRow + 1) * tileSize - ch / 2;
+			}
+			else {
+				ytemp += dy[i];
+			}
+		}
+
+		//horizontally, decelerating after a win
+		if (is(f, MOVING)) {
+			calculateCorners(xdest, y[i], cw, ch);
+			if (dx[i] > 0) {
+				if (topRight || bottomRight) d = die(Player.DIED_ON_BLOCK);
+				else xtemp += dx[i];
+			}
+		}
+		else {
+			if (dx[i] > 0) {
+				dx[i] -= 0.2;
+				if (dx[i] < 0) dx[i] = 0;
+				xtemp += dx[i];
+			}
+		}
+
+		//start falling when there is nothing underneath
+		if (!is(f, FALLING) && !is(f, JUMPING)) {
+			if (g == 1) {
+				calculateCorners(x[i], ydest + 1, cw, ch);
+				if (!bottomLeft && !bottomRight) set(f, FALLING, true);
+			}
+			else {
+				calculateCorners(x[i], ydest - 1, cw, ch);
+				if (!topLeft && !topRight) set(f, FALLING, true);
+			}
+		}
+
+		dead[i] = d;
+		if (cause != -1) deathCause[i] = (byte)cause;
+		x[i] = xtemp;
+		y[i] = ytemp;
+	}
+
+	//jump input of one tick followed by the orbs, pads and portals the player touches, the same as TrainingSimulation does for a PlayerManager
+	public void applyInput(int i, boolean jump) {
+		int f = i * NUM_MODES + mode[i];
+		if (jump) {
+			set(f, JUMPING, true);
+			if (is(f, FIRST_CLICK)) {
+				firstClickTime[f] = inputTicks[i];
+				set(f, FIRST_CLICK, false);
+			}
+			set(f, FIRST_JUMP, inputTicks[i] - firstClickTime[f] < PlayerManager.FIRST_JUMP_TICKS);
+		}
+		else {
+			set(f, JUMPING, false);
+			set(f, FIRST_CLICK, true);
+		}
+		inputTicks[i]++;
+
+		int w = cwidth[mode[i]];
+		int px = (int)x[i] - w;
+		for (int j = firstCandidate(orbBoxes, px); j < orbBoxes.length && !pastCandidates(orbBoxes[j], px, w); j++) {
+			if (intersects(i, orbBoxes[j]) && is(f, JUMPING) && is(f, FIRST_JUMP) && !isTriggerActivated(i, j)) {
+				hitOrb(i, orbBoxes[j][4]);
+				orbs.get(j).setActivated(true);
+				setTriggerActivated(i, j);
+			}
+		}
+
+		for (int j = firstCandidate(padBoxes, px); j < padBoxes.length && !pastCandidates(padBoxes[j], px, w); j++) {
+			if (intersects(i, padBoxes[j]) && !isTriggerActivated(i, padTriggers + j)) {
+				hitPad(i, padBoxes[j][4]);
+				pads.get(j).setActivated(true);
+				setTriggerActivated(i, padTriggers + j);
+			}
+		}
+
+		for (int j = firstCandidate(gportalBoxes, px); j < gportalBoxes.length && !pastCandidates(gportalBoxes[j], px, w); j++) {
+			if (intersects(i, gportalBoxes[j])) {
+				int type = gportalBoxes[j][4];
+				if (type == GravityPortal.NORMAL || type == GravityPortal.NORMALH) {
+					if (gravity[i] != 1) flipGravity(i);
+				}
+				else {
+					if (gravity[i] != -1) flipGravity(i);
+				}
+			}
+		}
+
+		//the mode and with it the collision box can change while going through the portals
+		for (int j = firstCandidate(portalBoxes, (int)x[i] - maxPlayerWidth); j < portalBoxes.length && !pastCandidates(portalBoxes[j], (int)x[i] - maxPlayerWidth, maxPlayerWidth); j++) {
+			if (intersects(i, portalBoxes[j])) {
+				int type = portalBoxes[j][4];
+				if (type == Portal.CUBE || type == Portal.SHIP || type == Portal.BALL || type == Portal.WAVE) setMode(i, type);
+			}
+		}
+	}
+
+	//same as GameObject.intersects, using java.awt.Rectangle's rules
+	private boolean intersects(int i, int[] box) {
+		int w = cwidth[mode[i]];
+		int h = cheight[mode[i]];
+		if (w <= 0 || h <= 0 || box[2] <= 0 || box[3] <= 0) return false;
+		int px = (int)x[i] - w;
+		int py = (int)y[i] - h;
+		return box[0] + box[2] > px && box[1] + box[3] > py && px + w > box[0] && py + h > box[1];
+	}
+
+	private void hitOrb(int i, int type) {
+		int m = mode[i];
+		if (type == Orb.JUMP) {
+			dy[i] = jumpSpeed(m, gravity[i]);
+		}
+		else {
+			flipGravity(i);
+			dy[i] = maxFallSpeed(m, gravity[i]);
+		}
+	}
+
+	private void hitPad(int i, int type) {
+		int m = mode[i];
+		if (type == Pad.JUMP) {
+			if (m != PlayerManager.SHIP) dy[i] = jumpSpeed(m, gravity[i]) * 1.3;
+			else dy[i] = jumpSpeed(m, gravity[i]);
+		}
+		else {
+			flipGravity(i);
+			dy[i] = maxFallSpeed(m, gravity[i]);
+			set(i * NUM_MODES + m, FALLING, true);
+		}
+	}
+
+	//Player.flipGravity, going back to normal gravity runs initValues which also resets the speed and moving flag
+	private void flipGravity(int i) {
+		gravity[i] *= -1;
+		int m = mode[i];
+		if (gravity[i] == 1 && resetsOnNormalGravity[m]) {
+			dx[i] = moveSpeed[m];
+			set(i * NUM_MODES + m, MOVING, true);
+		}
+	}
+
+	//PlayerManager.setPlayer, the new mode starts at the old one's truncated position, gravity and vector
+	private void setMode(int i, int newMode) {
+		x[i] = (int)x[i];
+		y[i] = (int)y[i];
+		if (gravity[i] == 1 && resetsOnNormalGravity[newMode]) {
+			set(i * NUM_MODES + newMode, MOVING, true);
+			if (newMode == mode[i]) dx[i] = moveSpeed[newMode];	//the vector is read back after setGravity reset it
+		}
+		mode[i] = (byte)newMode;
+	}
+
+	private boolean isTriggerActivated(int i, int j) {return (triggers[i * triggerWords + (j >> 6)] & (1L << j)) != 0;}
+	private void setTriggerActivated(int i, int j) {triggers[i * triggerWords + (j >> 6)] |= 1L << j;}
+
+	//forgets the timing of clicks that can no longer make a difference, so players that only differ in it compare as the same state
+	//a released click's time is overwritten by the next one, and one held past the firstJump window stays outside it
+	//the player moves exactly the same afterwards
+	public void normalizeInput(int i) {
+		for (int f = i * NUM_MODES; f < (i + 1) * NUM_MODES; f++) {
+			if (is(f, FIRST_CLICK)) {
+				firstClickTime[f] = 0;
+				set(f, FIRST_JUMP, false);
+			}
+			else if (inputTicks[i] - firstClickTime[f] >= PlayerManager.FIRST_JUMP_TICKS) firstClickTime[f] = Long.MIN_VALUE / 2;
+		}
+	}
+
+	//copies everything about player from to player to, used to fork a simulated trajectory
+	public void copyState(int from, int to) {
+		copyState(this, from, to);
+	}
+
+	//the same from a batch of the same level, such as one holding a saved state
+	public void copyState(PlayerBatch source, int from, int to) {
+		mode[to] = source.mode[from];
+		x[to] = source.x[from];
+		y[to] = source.y[from];
+		dx[to] = source.dx[from];
+		dy[to] = source.dy[from];
+		gravity[to] = source.gravity[from];
+		dead[to] = source.dead[from];
+		deathCause[to] = source.deathCause[from];
+		inputTicks[to] = source.inputTicks[from];
+		System.arraycopy(source.triggers, from * triggerWords, triggers, to * triggerWords, triggerWords);
+		System.arraycopy(source.flags, from * NUM_MODES, flags, to * NUM_MODES, NUM_MODES);
+		System.arraycopy(source.firstClickTime, from * NUM_MODES, firstClickTime, to * NUM_MODES, NUM_MODES);
+	}
+
+	//two players in the same state will move identically given the same inputs
+	public boolean sameState(int a, int b) {
+		if (mode[a] != mode[b] || x[a] != x[b] || y[a] != y[b] || dx[a] != dx[b] || dy[a] != dy[b]
+			|| gravity[a] != gravity[b] || dead[a] != dead[b] || inputTicks[a] != inputTicks[b]) return false;
+		for (int w = 0; w < triggerWords; w++) {
+			if (triggers[a * triggerWords + w] != triggers[b * triggerWords + w]) return false;
+		}
+		for (int m = 0; m < NUM_MODES; m++) {
+			if (flags[a * NUM_MODES + m] != flags[b * NUM_MODES + m] || firstClickTime[a * NUM_MODES + m] != firstClickTime[b * NUM_MODES + m]) return false;
+		}
+		return true;
+	}
+
+	public long stateHash(int i) {
+		long h = Double.doubleToLongBits(x[i]);
+		h = h * 31 + Double.doubleToLongBits(y[i]);
+		h = h * 31 + Double.doubleToLongBits(dx[i]);
+		h = h * 31 + Double.doubleToLongBits(dy[i]);
+		h = h * 31 + mode[i] * 3 + gravity[i];
+		h = h * 31 + inputTicks[i];
+		h = h * 31 + (dead[i] ? 1 : 0);
+		for (int w = 0; w < triggerWords; w++) {
+			h = h * 31 + triggers[i * triggerWords + w];
+		}
+		for (int m = 0; m < NUM_MODES; m++) {
+			h = h * 31 + flags[i * NUM_MODES + m];
+			h = h * 31 + firstClickTime[i * NUM_MODES + m];
+		}
+		return h;
+	}
+
+	//shows player i through a PlayerManager, only what is needed to draw it
+	public void copyTo(int i, PlayerManager pm) {
+		pm.setPlayer(mode[i]);
+		Player p = pm.getPlayer();
+		p.setPosition(x[i], y[i]);
+		p.setGravity(gravity[i]);
+		p.setVector(dx[i], dy[i]);
+		p.setDead(dead[i]);
+	}
+
+	//getters / setters
+	public int getSize() {return size;}
+	public int getx(int i) {return (int)x[i];}
+	public int gety(int i) {return (int)y[i];}
+	public double getX(int i) {return x[i];}
+	public double getY(int i) {return y[i];}
+	public double getDX(int i) {return dx[i];}
+	public double getDY(int i) {return dy[i];}
+	public int getMode(int i) {return mode[i];}
+	public int getGravity(int i) {return gravity[i];}
+	public int getCWidth(int i) {return cwidth[mode[i]];}
+	public boolean isDead(int i) {return dead[i];}
+	public boolean isFalling(int i) {return is(i * NUM_MODES + mode[i], FALLING);}
+	public void setDead(int i, boolean b) {dead[i] = b;}
+	public int getDeathCause(int i) {return deathCause[i];}
+	public boolean atEndOfLevel(int i) {return x[i] > mapWidth - 96;}
+	public void setMoving(int i, boolean b) {set(i * NUM_MODES + mode[i], MOVING, b);}
+
+	//all of the functions used to calculate the slopes of special tiles, see Player
+	private double leftSlopeSpike(double x, double y, int cwidth, int cheight) {
+		if (br == Tile.SPIKE) {
+			return (((x + cwidth / 2 - 1) - ((int)(x + cwidth / 2 - 1) / 32 * 32) + 1) * -2 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+		else {
+			return (((x + cwidth / 2 - 1) - ((int)(x + cwidth / 2 - 1) / 32 * 32) + 1) * -2 - 64 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+	}
+
+	private double rightSlopeSpike(double x, double y, int cwidth, int cheight) {
+		if (bl == Tile.SPIKE) {
+			return ((((int)(x - cwidth / 2) / 32 * 32 + 32) - (x - cwidth / 2)) * -2 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+		else {
+			return ((((int)(x - cwidth / 2) / 32 * 32 + 32) - (x - cwidth / 2)) * -2 - 64 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+	}
+
+	private double leftSlopeThorn(double x, double y, int cwidth, int cheight) {
+		if (br == Tile.THORN) {
+			double slope = ((x + cwidth / 2 - 1) - ((int)(x + cwidth / 2 - 1) / 32 * 32) + 1) * -1;
+			if (slope > -14) slope = -14;
+			return (slope + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+		else {
+			return (-14 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+	}
+
+	private double rightSlopeThorn(double x, double y, int cwidth, int cheight) {
+		if (bl == Tile.THORN) {
+			double slope = (((int)(x - cwidth / 2) / 32 * 32 + 32) - (x - cwidth / 2)) * -0.78;
+			if (slope > -14) slope = -14;
+			return (slope + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+		else {
+			return (-14 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+	}
+
+	private double leftSlopeFlipSpike(double x, double y, int cwidth, int cheight) {
+		if (tr == Tile.FLIPSPIKE) {
+			return (((x + cwidth / 2 - 1) - ((int)(x + cwidth / 2 - 1) / 32 * 32) + 1) * 2 + ((int)(y - cheight / 2) / 32 * 32));
+		}
+		else {
+			return (((x + cwidth / 2 - 1) - ((int)(x + cwidth / 2 - 1) / 32 * 32) + 1) * 2 + 64 + ((int)(y - cheight / 2) / 32 * 32));
+		}
+	}
+
+	private double rightSlopeFlipSpike(double x, double y, int cwidth, int cheight) {
+		if (tl == Tile.FLIPSPIKE) {
+			return ((((int)(x - cwidth / 2) / 32 * 32 + 32) - (x - cwidth / 2)) * 2 + ((int)(y - cheight / 2) / 32 * 32));
+		}
+		else {
+			return ((((int)(x - cwidth / 2) / 32 * 32 + 32) - (x - cwidth / 2)) * 2 + 64 + ((int)(y - cheight / 2) / 32 * 32));
+		}
+	}
+
+	private double leftSlopeRamp(double x, double y, int cwidth, int cheight) {
+		return (((x + cwidth / 2 - 1) - ((int)(x + cwidth / 2 - 1) / 32 * 32) + 1) * -1 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+	}
+
+	private double rightSlopeRamp(double x, double y, int cwidth, int cheight) {
+		return ((((int)(x - cwidth / 2) / 32 * 32 + 32) - (x - cwidth / 2)) * -1 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+	}
+
+	private double leftSlopeFlipRamp(double x, double y, int cwidth, int cheight) {
+		return (((x + cwidth / 2 - 1) - ((int)(x + cwidth / 2 - 1) / 32 * 32) + 1) * 1 + ((int)(y - cheight / 2) / 32 * 32));
+	}
+
+	private double rightSlopeFlipRamp(double x, double y, int cwidth, int cheight) {
+		return ((((int)(x - cwidth / 2) / 32 * 32 + 32) - (x - cwidth / 2)) * 1 + ((int)(y - cheight / 2) / 32 * 32));
+	}
+
+	private double leftSlopeMiniRamp(double x, double y, int cwidth, int cheight) {
+		if (br == Tile.MINIRAMP) {
+			double slope = ((x + cwidth / 2 - 1) - ((int)(x + cwidth / 2 - 1) / 32 * 32) + 1) * -1;
+			if (slope < -16) slope = -16;
+			return (slope + (int)(y + cheight / 2 - 1) / 32 * 32 + 32);
+		}
+		else {
+			return (-16 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+	}
+
+	private double rightSlopeMiniRamp(double x, double y, int cwidth, int cheight) {
+		if (bl == Tile.MINIRAMP) {
+			double slope = (((int)(x - cwidth / 2) / 32 * 32 + 32) - (x - cwidth / 2)) * -1;
+			if (slope < -16) slope = -16;
+			return (slope + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+		else {
+			return (-16 + ((int)(y + cheight / 2 - 1) / 32 * 32 + 32));
+		}
+	}
+
+	private double leftSlopeFlipMiniRamp(double x, double y, int cwidth, int cheight) {
+		if (tr == Tile.FLIPMINIRAMP) {
+			double slope = ((x + cwidth / 2 - 1) - ((int)(x + cwidth / 2 - 1) / 32 * 32) + 1) * 1;
+			if (slope > 16) slope = 16;
+			return (slope + ((int)(y - cheight / 2) / 32 * 32));
+		}
+		else {
+			return (16 + ((int)(y - cheight / 2) / 32 * 32));
+		}
+	}
+
+	private double rightSlopeFlipMiniRamp(double x, double y, int cwidth, int cheight) {
+		if (tl == Tile.FLIPMINIRAMP) {
+			double slope = (((int)(x - cwidth / 2) / 32 * 32 + 32) - (x - cwidth / 2)) * 1;
+			if (slope > 16) slope = 16;
+			return (slope + ((int)(y - cheight / 2) / 32 * 32));
+		}
+		else {
+			return (16 + ((int)(y - cheight / 2) / 32 * 32));
+		}
+	}
+}
@@ -1,7 +1,7 @@
 package Entity;
 
 import java.awt.Graphics2D;
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import Audio.AudioPlayer;
 import TileMap.TileMap;
@@ -9,10 +9,17 @@ import TileMap.TileMap;
 //similar to Game state manager but with player modes instead
 //handles the changing of modes and the player in general
 //Note: the player classes are never used directly in game, they are always interacting through player manager
-public class PlayerManager {
-	private ArrayList<Player> players;	//arraylist to store the player modes
+//a mode is only created once the player first switches to it, most players never leave the cube and training creates thousands of them
+public final class PlayerManager {
+	private Player[] players;			//array to store the player modes, indexed by mode, null for modes not used yet
 	private int currentPlayer;			//var to keep track of current player mode
-	public AudioPlayer deathSound;		//death sound effect
+	private TileMap tileMap;
+	private boolean initialized;		//whether init has been called, modes created afterwards start out respawned
+	public AudioPlayer deathSound;		//death sound effect, shared by every player manager
+	private static AudioPlayer sharedDeathSound;
+
+	private long inputTicks;			//number of AI inputs given, used to time the firstJump window deterministically
+	private boolean[] triggersActivated;	//per player orb/pad activation, so players sharing a level do not use up each other's orbs and pads
 
 	//static final int values for the differnet modes
 	public static final int CUBE = 0;
@@ -21,38 +28,154 @@ public class PlayerManager {
 	public static final int WAVE = 3;
 	public static final int BALL = 4;
 
+	//how long a held jump still counts as a first jump, 100ms at the normal 60 ticks per second
+	public static final int FIRST_JUMP_TICKS = 6;
+
 	public PlayerManager(TileMap tm) {
-		players = new ArrayList<Player>();
-		deathSound = new AudioPlayer("/SFX/deathsound.mp3");
+		deathSound = getDeathSound();
+		tileMap = tm;
 		currentPlayer = CUBE;
-		players.add(new Cube(tm, this));
-		players.add(new Ship(tm, this));
-		players.add(new UFO(tm, this));
-		players.add(new Wave(tm, this));
-		players.add(new Ball(tm, this));
+		players = new Player[5];
+		players[CUBE] = new Cube(tm, this);
+		triggersActivated = new boolean[0];
+		resetInput();
+	}
+
+	//the mode in the state it would be in had it been created with the player manager and never used
+	private Player createMode(int mode) {
+		Player p;
+		switch (mode) {
+			case SHIP: p = new Ship(tileMap, this); break;
+			case UFO: p = new UFO(tileMap, this); break;
+			case WAVE: p = new Wave(tileMap, this); break;
+			case BALL: p = new Ball(tileMap, this); break;
+			default: p = new Cube(tileMap, this);
+		}
+		if (initialized) p.respawn();
+		resetInput(p);
+		return p;
+	}
+
+	private Player getMode(int mode) {
+		if (players[mode] == null) players[mode] = createMode(mode);
+		return players[mode];
+	}
+
+	//the sound is only decoded once, training creates thousands of player managers
+	private static synchronized AudioPlayer getDeathSound() {
+		if (sharedDeathSound == null) sharedDeathSound = new AudioPlayer("/SFX/deathsound.mp3");
+		return sharedDeathSound;
 	}
 
 	public void init() {
 		currentPlayer = CUBE;
+		initialized = true;
+		for (Player p : players) {
+			if (p != null) p.respawn();
+		}
+		resetInput();
+	}
+
+	//jump input for AI controlled players, called once per tick
+	//same as the keyboard handling in NormalMode, but the firstJump window is measured in ticks so a run plays out the same at any tick rate
+	public void setJumpInput(boolean jump) {
+		Player p = getPlayer();
+		if (jump) {
+			p.setJumping(true);
+			if (p.isFirstClick()) {
+				p.setFirstClickTime(inputTicks);
+				p.setFirstClick(false);
+			}
+			p.setFirstJump(inputTicks - p.getFirstClickTime() < FIRST_JUMP_TICKS);
+		}
+		else {
+			p.setJumping(false);
+			p.setFirstClick(true);
+		}
+		inputTicks++;
+	}
+
+	//forget any held jump, as if the button had been released before spawning
+	public void resetInput() {
+		inputTicks = 0;
+		for (Player p : players) {
+			if (p != null) resetInput(p);
+		}
 	}
 
+	private static void resetInput(Player p) {
+		p.setJumping(false);
+		p.setFirstClick(true);
+		p.setFirstJump(false);
+		p.setFirstClickTime(0);
+	}
+
+	//triggers are numbered by the mode, orbs first and then pads
+	public void resetTriggers(int numTriggers) {
+		if (triggersActivated.length != numTriggers) triggersActivated = new boolean[numTriggers];
+		else Arrays.fill(triggersActivated, false);
+	}
+
+	//copy the full simulation state of another manager, including its inactive modes since they keep state of their own
+	//a mode the other manager has not used yet is dropped, so it is created again in its unused state if it is needed
+	public void copyStateFrom(PlayerManager o) {
+		currentPlayer = o.currentPlayer;
+		inputTicks = o.inputTicks;
+		initialized = o.initialized;
+		if (triggersActivated.length != o.triggersActivated.length) triggersActivated = new boolean[o.triggersActivated.length];
+		System.arraycopy(o.triggersActivated, 0, triggersActivated, 0, triggersActivated.length);
+		for (int i = 0; i < players.length; i++) {
+			if (o.players[i] != null) getMode(i).copyStateFrom(o.players[i]);
+			else players[i] = null;
+		}
+	}
+
+	//two managers in the same state will behave identically given the same inputs
+	//a mode only one of them has used counts as different, even if it happens to be back in its unused state
+	public boolean sameState(PlayerManager o) {
+		if (currentPlayer != o.currentPlayer || inputTicks != o.inputTicks) return false;
+		if (!Arrays.equals(triggersActivated, o.triggersActivated)) return false;
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] == null || o.players[i] == null) {
+				if (players[i] != o.players[i]) return false;
+			}
+			else if (!players[i].sameState(o.players[i])) return false;
+		}
+		return true;
+	}
+
+	public long stateHash() {
+		long h = currentPlayer * 31 + inputTicks;
+		for (int i = 0; i < triggersActivated.length; i++) {
+			if (triggersActivated[i]) h = h * 31 + i + 1;
+		}
+		for (Player p : players) {
+			h = h * 1000003 + (p != null ? p.stateHash() : 0);
+		}
+		return h;
+	}
+
+	public boolean isTriggerActivated(int i) {return triggersActivated[i];}
+	public void setTriggerActivated(int i) {triggersActivated[i] = true;}
+
 	//when changing modes, also transfer attributes and stats
 	public void setPlayer(int player) {
-		Player p = players.get(currentPlayer);
-		players.get(player).setPosition(p.getx(), p.gety());
-		players.get(player).setGravity(p.getGravity());
-		players.get(player).setDY(p.getDY());
-		players.get(player).setDX(p.getDX());
+		Player p = players[currentPlayer];
+		Player next = getMode(player);
+		next.setPosition(p.getx(), p.gety());
+		next.setGravity(p.getGravity());
+		next.setDY(p.getDY());
+		next.setDX(p.getDX());
 		currentPlayer = player;
 	}
 
-	public Player getPlayer() {return players.get(currentPlayer);}
+	public Player getPlayer() {return players[currentPlayer];}
 
 	public void update() {
-		players.get(currentPlayer).update();
+		players[currentPlayer].update();
 	}
 
 	public void draw(Graphics2D g) {
-		players.get(currentPlayer).draw(g);
+		players[currentPlayer].draw(g);
 	}
 }
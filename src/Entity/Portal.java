@@ -2,8 +2,6 @@ package Entity;
 
 import java.awt.image.BufferedImage;
 
-import javax.imageio.ImageIO;
-
 import TileMap.TileMap;
 
 public class Portal extends GameObject{
@@ -30,7 +28,7 @@ public class Portal extends GameObject{
 		cheight = 90;
 		
 		try {
-			BufferedImage spritesheet = ImageIO.read(getClass().getResourceAsStream("/Sprites/portals.png"));
+			BufferedImage spritesheet = Sprites.get("/Sprites/portals.png");
 			sprites = new BufferedImage[5];
 			for (int i = 0; i < sprites.length; i++) {
 				sprites[i] = spritesheet.getSubimage(0, spritesheet.getHeight() - (i + 1) * height, width, height);
@@ -2,8 +2,6 @@ package Entity;
 
 import java.awt.image.BufferedImage;
 
-import javax.imageio.ImageIO;
-
 import TileMap.TileMap;
 
 //ship player mode subclass
@@ -20,7 +18,7 @@ public class Ship extends Player{
 		cheight = 32;
 
 		try {
-			BufferedImage spritesheet = ImageIO.read(getClass().getResourceAsStream("/Sprites/ship.png"));
+			BufferedImage spritesheet = Sprites.get("/Sprites/ship.png");
 			sprites = new BufferedImage[1];
 			sprites[0] = spritesheet;
 		}
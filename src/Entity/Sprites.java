@@ -0,0 +1,24 @@
+package Entity;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+//every sprite sheet, tileset and background is read once and then shared, so creating thousands of players does not decode the same images thousands of times
+//Main.Preloader reads them all at startup
+//Note: the images are shared, so they must never be drawn on
+public class Sprites {
+	private static final ConcurrentHashMap<String, BufferedImage> sheets = new ConcurrentHashMap<String, BufferedImage>();
+
+	public static BufferedImage get(String path) throws IOException {
+		BufferedImage sheet = sheets.get(path);
+		if (sheet == null) {
+			sheet = ImageIO.read(Sprites.class.getResourceAsStream(path));
+			BufferedImage previous = sheets.putIfAbsent(path, sheet);
+			if (previous != null) sheet = previous;
+		}
+		return sheet;
+	}
+}
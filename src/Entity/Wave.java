@@ -2,8 +2,6 @@ package Entity;
 
 import java.awt.image.BufferedImage;
 
-import javax.imageio.ImageIO;
-
 import TileMap.TileMap;
 
 //wave player mode subclass
@@ -23,7 +21,7 @@ public class Wave extends Player{
 		cheight = 21;
 
 		try {
-			BufferedImage spritesheet = ImageIO.read(getClass().getResourceAsStream("/Sprites/wave.png"));
+			BufferedImage spritesheet = Sprites.get("/Sprites/wave.png");
 			sprites = new BufferedImage[spritesheet.getWidth() / width];
 			for (int i = 0; i < sprites.length; i++) {
 				sprites[i] = spritesheet.getSubimage(i * width, 0, width, height);
@@ -5,28 +5,42 @@ import java.awt.Color;
 import java.awt.Composite;
 import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import Audio.AudioPlayer;
 import Entity.*;
 import Main.GamePanel;
 import TileMap.Background;
+import TileMap.LevelCompiler;
 import TileMap.TileMap;
 
-import JavaNN.Network.*;
-import JavaNN.Training.Agent;
+import AI.FlatNetwork;
+import AI.ModelFile;
+import AI.Replay;
+import AI.SensorTable;
 
 public class AIMode extends Mode{
 	private PlayerManager pm;
 	private float deathTime; 	//keeps track of time of death, to create a 1 second respawn delay
 	private boolean running;	//determines if the player should be updated
-	private NeuralNetwork network;
+	private FlatNetwork network;
+	private SensorTable sensors;
+	private double[] networkInputs;
+	private String[] models;	//every model found in MODEL_DIR, cycled through with M
+	private int currentModel;
+	private Replay replay;		//records the current attempt so a win can be played back in ReplayMode
+	private boolean saveReplays = true;	//off while exporting frames, which only plays the level
 
 	private static final int RESPAWN_DELAY_MS = 1000;
 	private static final double SPAWN_X = 64;
 	private static final double SPAWN_Y = 560;
 
+	private static final String MODEL_DIR = "ai_models";
+	private static final String DEFAULT_MODEL = MODEL_DIR + "/training-win" + ModelFile.EXTENSION;
+
 
     public AIMode(GameStateManager gsm, Background bg, TileMap tileMap, AudioPlayer music) {
         this.gsm = gsm;
@@ -44,7 +58,7 @@ public class AIMode extends Mode{
     public void init() {
         // initialize tilemap
         tileMap.loadTiles();
-		tileMap.loadMap();
+		LevelCompiler.load(tileMap);
 		tileMap.setPosition(0, 0);
 		tileMap.setTween(1);
 
@@ -55,19 +69,78 @@ public class AIMode extends Mode{
 		portals.clear();
 		explosions.clear();
 
-        // create entities by scanning the level's tilemap
-		scanMap(tileMap.getMap());
+        // create the entities of the compiled level
+		spawnEntities();
 
         //initialize player settings
+		replay = new Replay(tileMap.getLevelId(), SPAWN_X, SPAWN_Y);
 		deathTime = -1;
 		setPlayer();
 		running = true;
 
+		network = null;
 		try {
-			network = NeuralNetwork.loadFromFile("ai_models/training-win.model");
-		} catch (IOException e) {}
+			// converts the legacy training-win.model on first use
+			loadModel(DEFAULT_MODEL);
+		} catch (IOException e) {
+			System.out.println("Could not load " + DEFAULT_MODEL + ": " + e.getMessage());
+		}
+		findModels();
     }
 
+	//maps a .gdnn model into the network used for playback
+	private void loadModel(String path) throws IOException {
+		long start = System.nanoTime();
+		FlatNetwork loaded = ModelFile.loadOrConvert(path);
+		// the network sees the rows it was trained on, or the spawn row for models that don't say
+		int[] rows = loaded.getSensingRows();
+		if (rows == null) rows = new int[]{SensorTable.spawnRow(SPAWN_Y, tileMap.getTileSize())};
+		try {
+			sensors = new SensorTable(tileMap, loaded.getViewDistance(), loaded.sensesObstacleDistance(), rows);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(path + " can't be played on this level: " + e.getMessage());
+		}
+		network = loaded;
+		networkInputs = new double[sensors.getNumInputs()];
+		System.out.println("Loaded " + path + " in " + (System.nanoTime() - start) / 1000 + "us");
+	}
+
+	private void findModels() {
+		File[] files = new File(MODEL_DIR).listFiles((dir, name) -> name.endsWith(ModelFile.EXTENSION));
+		if (files == null) files = new File[0];
+		models = new String[files.length];
+		currentModel = 0;
+		for (int i = 0; i < files.length; i++) {
+			models[i] = MODEL_DIR + "/" + files[i].getName();
+		}
+		Arrays.sort(models);
+		for (int i = 0; i < models.length; i++) {
+			if (models[i].equals(DEFAULT_MODEL)) currentModel = i;
+		}
+	}
+
+	//plays the given model from the start of the level
+	public void setModel(String path) throws IOException {
+		loadModel(path);
+		reset();
+	}
+
+	public boolean isAttemptOver() {return !running;}
+	public void setSaveReplays(boolean saveReplays) {this.saveReplays = saveReplays;}
+
+	//switch to the next model in MODEL_DIR and restart the level with it
+	private void nextModel() {
+		if (models.length == 0) return;
+		currentModel = (currentModel + 1) % models.length;
+		try {
+			loadModel(models[currentModel]);
+		} catch (IOException e) {
+			System.out.println("Could not load " + models[currentModel] + ": " + e.getMessage());
+			return;
+		}
+		reset();
+	}
+
     public void update() {
 		// quit to menu if neural network model isn't loaded
 		if (network == null) {
@@ -81,6 +154,8 @@ public class AIMode extends Mode{
 			pm.getPlayer().setMoving(false);
 			if (pm.getPlayer().getDX() == 0) {
 				gsm.setState(GameStateManager.WINSTATE);
+				if (saveReplays) replay.saveAIRun();
+				replay.clear();
 				setPlayer();
 			}
 		}
@@ -95,14 +170,11 @@ public class AIMode extends Mode{
 		}
 		
 		// get jump input from neural network
-		double[] networkInputs = getNetworkInputs(pm, true);
+		sensors.sense(pm.getPlayer(), networkInputs, 0);
 		double networkOutput = network.evaluate(networkInputs)[0];
 		boolean shouldJump = networkOutput >= 0.98;
-		if (shouldJump) {
-			startJumping(pm);
-		} else {
-			stopJumping(pm);
-		}
+		pm.setJumpInput(shouldJump);
+		if (running) replay.record(shouldJump);
 
 		//locks the vertical movement of the screen for modes other than Cube
 		if (pm.getPlayer() instanceof Cube) {
@@ -211,6 +283,7 @@ public class AIMode extends Mode{
 		}
 		if (k == KeyEvent.VK_ESCAPE) gsm.beginState(GameStateManager.PAUSESTATE);		//esc to pause
 		if (k == KeyEvent.VK_R) {reset();} 		//r to restart level
+		if (k == KeyEvent.VK_M) {nextModel();}	//m to play the next saved model
 	}
 
 	public void keyReleased(int k) {
@@ -220,26 +293,9 @@ public class AIMode extends Mode{
 		}
 	}
 
-	private void startJumping(PlayerManager pm) {
-		pm.getPlayer().setJumping(true);
-		//calculating the firstJump condition
-		if (pm.getPlayer().isFirstClick()) {
-			pm.getPlayer().setFirstClickTime(System.nanoTime());
-			pm.getPlayer().setFirstClick(false);
-		}
-		if ((System.nanoTime() - pm.getPlayer().getFirstClickTime()) / 1000000 < 100) {
-			pm.getPlayer().setFirstJump(true);
-		}
-		else pm.getPlayer().setFirstJump(false);
-	}
-
-	private void stopJumping(PlayerManager pm) {
-		pm.getPlayer().setJumping(false);
-		pm.getPlayer().setFirstClick(true);
-	}
-
     //method to reset player, music, and some entites in order to restart the level
 	private void reset() {
+		replay.clear();
 		deathTime = -1;
 		setPlayer();
 		running = true;
@@ -257,30 +313,4 @@ public class AIMode extends Mode{
 		pm = new PlayerManager(tileMap);
 		pm.getPlayer().setPosition(SPAWN_X, SPAWN_Y);
 	}
-
-	private double[] getNetworkInputs(PlayerManager pm, boolean shouldNormalize) {
-		int tileSize = tileMap.getTileSize();
-		int playerFront = pm.getPlayer().getx() + pm.getPlayer().getCWidth()/2;
-		int nextColX = Math.ceilDiv(playerFront, tileSize) * tileSize;
-
-		int aiViewDistance = network.getArchitecture()[0]-1;
-		double[] output = new double[aiViewDistance + 1]; // network can see 10 blocks in front
-		output[0] = nextColX - playerFront;
-		
-		byte[][] map = tileMap.getMap();
-		byte[] row = map[(int)SPAWN_Y/32];
-		int col = (int)Math.ceil((double)playerFront / tileSize);
-		for (int i = 0; i+col < row.length && i < aiViewDistance; i++) {
-			output[i+1] = (double)row[i+col];
-		}
-
-		if (shouldNormalize) {
-			output[0] /= tileSize;
-			for (int i = 1; i < output.length; i++) {
-				if (output[i] > 0) output[i] = 1;
-			}
-		}
-
-		return output;
-	}
 }
@@ -1,19 +1,16 @@
 
 package GameState;
 
-import java.util.ArrayList;
 import java.util.Stack;
 
 import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
 
 public class GameStateManager {
-	private ArrayList<GameState> gameStates;
+	private GameState[] gameStates;		//null until a state is first used
 	private int currentState;
 	private Stack<Integer> prevStates;
 
-	
-	private ArrayList<LevelState> levelStates;
 	private int mode;
 
 	//static final values for the different states to be referred as
@@ -25,46 +22,72 @@ public class GameStateManager {
 	public static final int INSTRUCTIONSTATE = 5;
 	public static final int TRAINING_LEVEL_0_STATE = 6;
 	public static final int TESTING_LEVEL_0_STATE = 7;
+	public static final int LOADINGSTATE = 8;
+	public static final int NUM_STATES = 9;
 
-	//store all gamestates in an arraylist, through which they can be switched to and updated
+	//gamestates are only built the first time they are switched to, the game starts out preloading assets
 	public GameStateManager() {
-		gameStates = new ArrayList<GameState>();
+		gameStates = new GameState[NUM_STATES];
 		prevStates = new Stack<Integer>();
-		levelStates = new ArrayList<LevelState>();
 
-		currentState = MENUSTATE;
+		currentState = LOADINGSTATE;
 		mode = ModeManager.NORMAL_MODE;
-		gameStates.add(new MenuState(this));
-		gameStates.add(new LevelSelectState(this));
-		gameStates.add(new Level1State(this));
-		gameStates.add(new PauseState(this));
-		gameStates.add(new WinState(this));
-		gameStates.add(new InstructionState(this));
-		gameStates.add(new TrainingLevel0State(this));
-		gameStates.add(new TestingLevel0State(this));
-
-		levelStates.add((LevelState)gameStates.get(LEVEL1STATE));
-		levelStates.add((LevelState)gameStates.get(TRAINING_LEVEL_0_STATE));
-		levelStates.add((LevelState)gameStates.get(TESTING_LEVEL_0_STATE));
+		gameStates[LOADINGSTATE] = new LoadingState(this);
+	}
+
+	private GameState getState(int state) {
+		if (gameStates[state] == null) gameStates[state] = createState(state);
+		return gameStates[state];
+	}
+
+	private GameState createState(int state) {
+		switch (state) {
+			case MENUSTATE: return new MenuState(this);
+			case LEVELSELECTSTATE: return new LevelSelectState(this);
+			case PAUSESTATE: return new PauseState(this);
+			case WINSTATE: return new WinState(this);
+			case INSTRUCTIONSTATE: return new InstructionState(this);
+			case LOADINGSTATE: return new LoadingState(this);
+		}
+		LevelState level;
+		if (state == LEVEL1STATE) level = new Level1State(this);
+		else if (state == TRAINING_LEVEL_0_STATE) level = new TrainingLevel0State(this);
+		else if (state == TESTING_LEVEL_0_STATE) level = new TestingLevel0State(this);
+		else throw new IllegalArgumentException("No game state " + state);
+		level.setMode(mode);
+		return level;
 	}
 
 	//set to state
 	public void setState(int state) {
-		gameStates.get(currentState).stopMusic();
+		getState(currentState).stopMusic();
 		prevStates.push(currentState);
 		currentState = state;
-		gameStates.get(currentState).resumeMusic();
+		getState(currentState).resumeMusic();
 	}
 		
 	//set to and initialize state
 	public void beginState(int state) {
-		gameStates.get(state).init();
-		gameStates.get(currentState).stopMusic();
+		getState(state).init();
+		getState(currentState).stopMusic();
 		prevStates.push(currentState);
-		gameStates.get(state).playMusic();
+		getState(state).playMusic();
 		currentState = state;
+		if (state == MENUSTATE || state == LEVELSELECTSTATE) releaseLevels();
 	}
 
+	//levels that were left are dropped along with their tilemap, background and music, and built again when next entered
+	private void releaseLevels() {
+		for (int i = 0; i < NUM_STATES; i++) {
+			if (gameStates[i] instanceof LevelState) {
+				((LevelState)gameStates[i]).release();
+				gameStates[i] = null;
+			}
+		}
+	}
+
+	public GameState getCurrentState() {return getState(currentState);}
+
 	public int getLastState() {
 		return prevStates.pop();
 	}
@@ -73,36 +96,36 @@ public class GameStateManager {
 	
 	public void setMode(int mode) { 
 		this.mode = mode; 
-		for (LevelState level : levelStates) {
-			level.setMode(mode);
+		for (GameState state : gameStates) {
+			if (state instanceof LevelState) ((LevelState)state).setMode(mode);
 		}
 	}
 
 	public void cycleMode() { 
-		setMode((mode + 1) % 3);
+		setMode((mode + 1) % ModeManager.NUM_MODES);
 	}
 
 	//update the currentState
 	public void update() {
-		gameStates.get(currentState).update();
+		getState(currentState).update();
 	}
 
 	public void draw(Graphics2D g) {
-		gameStates.get(currentState).draw(g);
+		getState(currentState).draw(g);
 	}
 	
 	public void keyUpdate(boolean[] keys) {
 		if (currentState == LEVEL1STATE || currentState == TRAINING_LEVEL_0_STATE) {
-			if (keys[0]) {gameStates.get(currentState).keyPressed(KeyEvent.VK_UP);}
-			else {gameStates.get(currentState).keyReleased(KeyEvent.VK_UP);}
+			if (keys[0]) {getState(currentState).keyPressed(KeyEvent.VK_UP);}
+			else {getState(currentState).keyReleased(KeyEvent.VK_UP);}
 		}
 	}
 	
 	public void keyPressed(int k) {
-		gameStates.get(currentState).keyPressed(k);
+		getState(currentState).keyPressed(k);
 	}
 	
 	public void keyReleased(int k) {
-		gameStates.get(currentState).keyReleased(k);
+		getState(currentState).keyReleased(k);
 	}
 }
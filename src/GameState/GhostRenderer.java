@@ -0,0 +1,129 @@
+package GameState;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import AI.TrainingSimulation;
+import Entity.Player;
+import Entity.PlayerManager;
+import Main.GamePanel;
+import TileMap.TileMap;
+
+/* Draws the trailing players of a training run, at a level of detail that depends on how many of them are on screen.
+* Up to maxSprites, every one is drawn as its sprite, using a faded copy of the frame made once per frame image, so no composite is switched per player.
+* Above that, they are drawn as one density image instead: for every pixel column of the screen, the number of players in it and the rows they span,
+* shaded by how many there are and drawn with a single drawImage. The players are only counted, so the drawing costs the same for any population. */
+public class GhostRenderer {
+	private static final int MAX_COLOR = 0x00FFFFFF;
+	private static final int HALF_SIZE = 16;		//half a player sprite
+
+	private float opacity;
+	private int maxSprites;
+	private IdentityHashMap<BufferedImage, BufferedImage> faded;	//faded copy of every frame image drawn so far
+
+	//one screen sized image, and per pixel column the players in it and the rows they span
+	private BufferedImage density;
+	private int[] pixels;
+	private int[] counts;
+	private int[] top;
+	private int[] bottom;
+
+	public GhostRenderer(float opacity, int maxSprites) {
+		this.opacity = opacity;
+		this.maxSprites = maxSprites;
+		faded = new IdentityHashMap<BufferedImage, BufferedImage>();
+		density = new BufferedImage(GamePanel.WIDTH, GamePanel.HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		pixels = ((DataBufferInt)density.getRaster().getDataBuffer()).getData();
+		counts = new int[GamePanel.WIDTH];
+		top = new int[GamePanel.WIDTH];
+		bottom = new int[GamePanel.WIDTH];
+	}
+
+	//draws every active, living player except the leader
+	public void draw(Graphics2D g, TrainingSimulation sim, ArrayList<PlayerManager> players, int leader, TileMap tileMap) {
+		Arrays.fill(counts, 0);
+		int onScreen = 0;
+		int mapX = (int)tileMap.getx();
+		int mapY = (int)tileMap.gety();
+		for (int i = 0; i < players.size(); i++) {
+			if (!sim.isActive(i) || i == leader) continue;
+			Player player = players.get(i).getPlayer();
+			if (player.isDead()) continue;
+			int screenX = player.getx() + mapX;
+			if (screenX < 0 || screenX >= GamePanel.WIDTH) continue;
+			int screenY = player.gety() + mapY;
+			if (counts[screenX] == 0) {
+				top[screenX] = screenY;
+				bottom[screenX] = screenY;
+			}
+			else {
+				top[screenX] = Math.min(top[screenX], screenY);
+				bottom[screenX] = Math.max(bottom[screenX], screenY);
+			}
+			counts[screenX]++;
+			onScreen++;
+		}
+		if (onScreen == 0) return;
+
+		if (onScreen <= maxSprites) {
+			// draw them in reverse order, like the leader is drawn last
+			for (int i = players.size() - 1; i >= 0; i--) {
+				if (!sim.isActive(i) || i == leader) continue;
+				Player player = players.get(i).getPlayer();
+				if (player.isDead()) continue;
+				int screenX = player.getx() + mapX;
+				if (screenX < -64 || screenX > GamePanel.WIDTH + 64) continue;	//partly on screen is enough
+				player.draw(g, fade(player.getImage()));
+			}
+		}
+		else {
+			shade(onScreen);
+			g.drawImage(density, 0, 0, null);
+		}
+	}
+
+	//fills the density image from the column counts, every player covers the columns and rows of a sprite around its position
+	//a column is as opaque as its share of the players allows, at least as opaque as a sprite
+	private void shade(int onScreen) {
+		Arrays.fill(pixels, 0);
+		for (int col = 0; col < GamePanel.WIDTH; col++) {
+			int count = 0;
+			int from = GamePanel.HEIGHT;
+			int to = 0;
+			for (int c = Math.max(0, col - HALF_SIZE); c < Math.min(GamePanel.WIDTH, col + HALF_SIZE); c++) {
+				if (counts[c] == 0) continue;
+				count += counts[c];
+				from = Math.min(from, top[c] - HALF_SIZE);
+				to = Math.max(to, bottom[c] + HALF_SIZE);
+			}
+			if (count == 0) continue;
+			double share = Math.sqrt((double)count / onScreen);
+			int alpha = (int)(255 * Math.min(1, opacity + share * (1 - opacity)));
+			int argb = alpha << 24 | MAX_COLOR;
+			for (int row = Math.max(0, from); row < Math.min(GamePanel.HEIGHT, to); row++) {
+				pixels[row * GamePanel.WIDTH + col] = argb;
+			}
+		}
+	}
+
+	//a copy of the image with its alpha scaled by the opacity, made the first time the image is drawn
+	private BufferedImage fade(BufferedImage image) {
+		BufferedImage copy = faded.get(image);
+		if (copy == null) {
+			copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+			for (int y = 0; y < image.getHeight(); y++) {
+				for (int x = 0; x < image.getWidth(); x++) {
+					int argb = image.getRGB(x, y);
+					int alpha = Math.round((argb >>> 24) * opacity);
+					copy.setRGB(x, y, alpha << 24 | (argb & MAX_COLOR));
+				}
+			}
+			faded.put(image, copy);
+		}
+		return copy;
+	}
+}
@@ -1,6 +1,6 @@
 package GameState;
 
-import Audio.AudioPlayer;
+import Audio.StreamingAudioPlayer;
 import TileMap.Background;
 import TileMap.Level1Map;
 
@@ -11,7 +11,7 @@ public class Level1State extends LevelState{
 			gsm,
 			new Background("/Backgrounds/lvl1bg.png", 0.1),
 			new Level1Map(32),
-			new AudioPlayer("/Music/level1music.wav")
+			new StreamingAudioPlayer("/Music/level1music.wav")
 		);
 	}
 }
@@ -20,6 +20,14 @@ public abstract class LevelState extends GameState{
         mm = new ModeManager(gsm, bg, tileMap, music);
     }
 
+    public void release() {
+        mm.release();
+    }
+
+    public Mode getCurrentMode() {
+        return mm.getCurrentMode();
+    }
+
     public void setMode(int mode) {
         mm.setMode(mode);
     }
@@ -0,0 +1,45 @@
+package GameState;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+
+import Main.GamePanel;
+import Main.Preloader;
+
+//state shown at startup while Main.Preloader decodes the assets, goes to the menu once it is done
+public class LoadingState extends GameState {
+	private static final int BAR_WIDTH = 300;
+	private static final int BAR_HEIGHT = 16;
+
+	private Preloader preloader;
+	private Font font;
+
+	public LoadingState(GameStateManager gsm) {
+		this.gsm = gsm;
+		font = new Font("Arial", Font.PLAIN, 16);
+		preloader = new Preloader();
+		preloader.start();
+	}
+
+	public void init() {}
+
+	public void update() {
+		if (preloader.isDone()) gsm.beginState(GameStateManager.MENUSTATE);
+	}
+
+	public void draw(Graphics2D g) {
+		int x = (GamePanel.WIDTH - BAR_WIDTH) / 2;
+		int y = GamePanel.HEIGHT / 2;
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0, GamePanel.WIDTH, GamePanel.HEIGHT);
+		g.setColor(Color.WHITE);
+		g.setFont(font);
+		g.drawString("Loading " + preloader.getNumLoaded() + "/" + preloader.getNumAssets(), x, y - 10);
+		g.drawRect(x, y, BAR_WIDTH, BAR_HEIGHT);
+		g.fillRect(x, y, BAR_WIDTH * preloader.getNumLoaded() / Math.max(1, preloader.getNumAssets()), BAR_HEIGHT);
+	}
+
+	public void keyPressed(int k) {}
+	public void keyReleased(int k) {}
+}
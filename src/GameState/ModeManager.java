@@ -1,27 +1,50 @@
 package GameState;
 
 import java.awt.Graphics2D;
-import java.util.ArrayList;
 
 import Audio.AudioPlayer;
 import TileMap.Background;
 import TileMap.TileMap;
 
+//modes are built the first time they are used, and share the level's background, tilemap and music
 public class ModeManager {
-    private ArrayList<Mode> modes;
+    private Mode[] modes;
     private int currentMode;
+    private GameStateManager gsm;
+    private Background bg;
+    private TileMap tileMap;
+    private AudioPlayer music;
 
     // static final values for modes the game can be in
 	public static final int NORMAL_MODE = 0;	// player controlled game
 	public static final int TRAINING_MODE = 1;	// AI training 
 	public static final int AI_MODE = 2;		// AI playback
+	public static final int REPLAY_MODE = 3;	// recorded run playback
+	public static final int NUM_MODES = 4;
 
     public ModeManager(GameStateManager gsm, Background bg, TileMap tileMap, AudioPlayer music) {
-        modes = new ArrayList<Mode>();
+        this.gsm = gsm;
+        this.bg = bg;
+        this.tileMap = tileMap;
+        this.music = music;
+        modes = new Mode[NUM_MODES];
         currentMode = 0;
-        modes.add(new NormalMode(gsm, bg, tileMap, music));
-        modes.add(new TrainingMode(gsm, bg, tileMap, music));
-        modes.add(new AIMode(gsm, bg, tileMap, music));
+    }
+
+    public Mode getCurrentMode() {
+        if (modes[currentMode] == null) {
+            if (currentMode == NORMAL_MODE) modes[currentMode] = new NormalMode(gsm, bg, tileMap, music);
+            else if (currentMode == TRAINING_MODE) modes[currentMode] = new TrainingMode(gsm, bg, tileMap, music);
+            else if (currentMode == AI_MODE) modes[currentMode] = new AIMode(gsm, bg, tileMap, music);
+            else modes[currentMode] = new ReplayMode(gsm, bg, tileMap, music);
+        }
+        return modes[currentMode];
+    }
+
+    //drops the modes and frees the music, the level has been left
+    public void release() {
+        for (int i = 0; i < NUM_MODES; i++) modes[i] = null;
+        if (music != null) music.close();
     }
 
     public void setMode(int mode) {
@@ -29,34 +52,34 @@ public class ModeManager {
     }
 
     public void init() {
-        modes.get(currentMode).init();
+        getCurrentMode().init();
     }
 
     public void update() {
-        modes.get(currentMode).update();
+        getCurrentMode().update();
     }
 
     public void draw(Graphics2D g) {
-        modes.get(currentMode).draw(g);
+        getCurrentMode().draw(g);
     }
 
     public void keyPressed(int k) {
-        modes.get(currentMode).keyPressed(k);
+        getCurrentMode().keyPressed(k);
     }
 
     public void keyReleased(int k) {
-        modes.get(currentMode).keyReleased(k);
+        getCurrentMode().keyReleased(k);
     }
 
     public void playMusic() {
-        modes.get(currentMode).playMusic();
+        getCurrentMode().playMusic();
     }
 
     public void resumeMusic() {
-        modes.get(currentMode).resumeMusic();
+        getCurrentMode().resumeMusic();
     }
 
     public void stopMusic() {
-        modes.get(currentMode).stopMusic();
+        getCurrentMode().stopMusic();
     }
 }
@@ -8,6 +8,7 @@ import Audio.AudioPlayer;
 import Entity.*;
 import Main.GamePanel;
 import TileMap.Background;
+import TileMap.LevelCompiler;
 import TileMap.TileMap;
 
 public class NormalMode extends Mode{
@@ -34,7 +35,7 @@ public class NormalMode extends Mode{
     public void init() {
         // initialize tilemap
         tileMap.loadTiles();
-		tileMap.loadMap();
+		LevelCompiler.load(tileMap);
 		tileMap.setPosition(0, 0);
 		tileMap.setTween(1);
 
@@ -45,8 +46,8 @@ public class NormalMode extends Mode{
 		portals.clear();
 		explosions.clear();
 
-        // create entities by scanning the level's tilemap
-		scanMap(tileMap.getMap());
+        // create the entities of the compiled level
+		spawnEntities();
 
         //initialize player settings
 		deathTime = -1;
@@ -0,0 +1,312 @@
+package GameState;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import Audio.AudioPlayer;
+import Entity.*;
+import Main.GamePanel;
+import TileMap.Background;
+import TileMap.LevelCompiler;
+import TileMap.TileMap;
+
+import AI.Replay;
+
+//plays back a recorded run of the current level, the recorded inputs drive the player so no network is evaluated
+public class ReplayMode extends Mode{
+	private PlayerManager pm;
+	private float deathTime; 	//keeps track of time of death, to create a 1 second respawn delay
+	private boolean running;	//determines if the player should be updated
+
+	private Replay replay;
+	private Replay.Reader reader;
+	private String[] replayFiles;	//every replay of this level, cycled through with M
+	private int currentReplay;
+	private int playbackSpeed;
+
+	private static final int RESPAWN_DELAY_MS = 1000;
+	private static final int[] PLAYBACK_TICK_RATES = {15, 30, 60, 120, 240, 600, 2400, 6000};
+	private static final int NORMAL_SPEED = 2;
+
+	public ReplayMode(GameStateManager gsm, Background bg, TileMap tileMap, AudioPlayer music) {
+		this.gsm = gsm;
+		this.bg = bg;
+		this.tileMap = tileMap;
+		this.music = music;
+
+		orbs = new ArrayList<Orb>();
+		pads = new ArrayList<Pad>();
+		gportals = new ArrayList<GravityPortal>();
+		portals = new ArrayList<Portal>();
+		explosions = new ArrayList<Explosion>();
+	}
+
+	public void init() {
+		// initialize tilemap
+		tileMap.loadTiles();
+		LevelCompiler.load(tileMap);
+		tileMap.setPosition(0, 0);
+		tileMap.setTween(1);
+
+		// clear old entities
+		orbs.clear();
+		pads.clear();
+		gportals.clear();
+		portals.clear();
+		explosions.clear();
+
+		// create the entities of the compiled level
+		spawnEntities();
+
+		findReplays();
+		replay = null;
+		for (int i = 0; i < replayFiles.length && replay == null; i++) {
+			currentReplay = i;
+			loadReplay(replayFiles[i]);
+		}
+
+		//initialize player settings
+		deathTime = -1;
+		running = true;
+		if (replay != null) setPlayer();
+		playbackSpeed = NORMAL_SPEED;
+		GamePanel.numTicks = PLAYBACK_TICK_RATES[playbackSpeed];
+	}
+
+	//the latest winner first, then AI mode's latest run, then the archive
+	private void findReplays() {
+		String levelId = tileMap.getLevelId();
+		ArrayList<String> files = new ArrayList<String>();
+		if (new File(Replay.winnerPath(levelId)).exists()) files.add(Replay.winnerPath(levelId));
+		if (new File(Replay.aiRunPath(levelId)).exists()) files.add(Replay.aiRunPath(levelId));
+		File[] archived = new File(Replay.REPLAY_DIR + "/archive").listFiles((dir, name) -> name.startsWith(levelId + "-") && name.endsWith(Replay.EXTENSION));
+		if (archived != null) {
+			String[] names = new String[archived.length];
+			for (int i = 0; i < archived.length; i++) names[i] = archived[i].getPath();
+			Arrays.sort(names);
+			for (int i = names.length - 1; i >= 0; i--) files.add(names[i]);
+		}
+		replayFiles = files.toArray(new String[0]);
+		currentReplay = 0;
+	}
+
+	private void loadReplay(String path) {
+		try {
+			Replay r = Replay.load(path);
+			if (!r.getLevelId().equals(tileMap.getLevelId())) {
+				System.out.println(path + " was recorded on " + r.getLevelId() + ", not " + tileMap.getLevelId());
+				return;
+			}
+			if (!r.isPlayable()) {
+				System.out.println(path + " was recorded with physics version " + r.getPhysicsVersion() + ", current is " + Player.PHYSICS_VERSION);
+				return;
+			}
+			replay = r;
+			System.out.println("Playing " + path + " (" + r.getNumTicks() + " ticks)");
+		} catch (IOException e) {
+			System.out.println("Could not load " + path + ": " + e.getMessage());
+		}
+	}
+
+	//plays the given recording from the start, if it is playable on this level
+	public void setReplay(String path) {
+		replay = null;
+		loadReplay(path);
+		reset();
+	}
+
+	public boolean isAttemptOver() {return !running;}
+
+	private void nextReplay() {
+		if (replayFiles.length == 0) return;
+		Replay previous = replay;
+		replay = null;
+		for (int i = 1; i <= replayFiles.length && replay == null; i++) {
+			currentReplay = (currentReplay + 1) % replayFiles.length;
+			loadReplay(replayFiles[currentReplay]);
+		}
+		if (replay == null) replay = previous;
+		reset();
+	}
+
+	public void update() {
+		// quit to menu if there is nothing to play back
+		if (replay == null) {
+			GamePanel.numTicks = PLAYBACK_TICK_RATES[NORMAL_SPEED];
+			gsm.beginState(GameStateManager.MENUSTATE);
+			return;
+		}
+
+		//update player
+		if (running) pm.update();
+		if(pm.getPlayer().atEndOfLevel()) {
+			pm.getPlayer().setMoving(false);
+			if (pm.getPlayer().getDX() == 0) {
+				GamePanel.numTicks = PLAYBACK_TICK_RATES[NORMAL_SPEED];
+				gsm.setState(GameStateManager.WINSTATE);
+				setPlayer();
+			}
+		}
+
+		if(pm.getPlayer().isDead()) {
+			deathTime = System.nanoTime();
+			pm.getPlayer().setDead(false);
+			running = false;
+			stopMusic();
+			pm.deathSound.play();
+			explosions.add(new Explosion(pm.getPlayer().getx(), pm.getPlayer().gety()));
+		}
+
+		// get jump input from the recording
+		if (running) pm.setJumpInput(reader.next());
+
+		//locks the vertical movement of the screen for modes other than Cube
+		if (pm.getPlayer() instanceof Cube) {
+			tileMap.setPosition(GamePanel.WIDTH / 2 - pm.getPlayer().getx(), GamePanel.HEIGHT / 2 - pm.getPlayer().gety());
+		}
+		else {
+			tileMap.setPosition(GamePanel.WIDTH / 2 - pm.getPlayer().getx());
+		}
+
+		//update background
+		bg.setPosition(tileMap.getx(), tileMap.gety());
+
+		//update entities
+		for (int i = 0; i < orbs.size(); i++) {
+			if (pm.getPlayer().intersects(orbs.get(i)) && pm.getPlayer().getJumping() && pm.getPlayer().isFirstJump() && !orbs.get(i).getActivatedOnce()) {
+				pm.getPlayer().hitOrb(orbs.get(i));
+			}
+			orbs.get(i).update();
+		}
+
+		for (int i = 0; i < pads.size(); i++) {
+			if (pm.getPlayer().intersects(pads.get(i)) && !pads.get(i).getActivatedOnce()) {
+				pm.getPlayer().hitPad(pads.get(i));
+			}
+		}
+
+		for (int i = 0; i < gportals.size(); i++) {
+			if (pm.getPlayer().intersects(gportals.get(i))) {
+				if (gportals.get(i).getType() == GravityPortal.NORMAL || gportals.get(i).getType() == GravityPortal.NORMALH) {
+					if (pm.getPlayer().getGravity() != 1) pm.getPlayer().flipGravity();
+				}
+				else {
+					if (pm.getPlayer().getGravity() != -1) pm.getPlayer().flipGravity();
+				}
+			}
+		}
+
+		for (int i = 0; i < portals.size(); i++) {
+			if (pm.getPlayer().intersects(portals.get(i))) {
+				if(portals.get(i).getType() == Portal.CUBE) pm.setPlayer(Portal.CUBE);
+				else if(portals.get(i).getType() == Portal.SHIP) pm.setPlayer(Portal.SHIP);
+				else if(portals.get(i).getType() == Portal.BALL) pm.setPlayer(Portal.BALL);
+				else if(portals.get(i).getType() == Portal.WAVE) pm.setPlayer(Portal.WAVE);
+			}
+		}
+
+		//update explosion
+		for (int i = 0; i < explosions.size(); i++) {
+			explosions.get(i).update();
+			if (explosions.get(i).shouldRemove()) explosions.remove(i);
+		}
+
+		//if it has been 1 second since dying, restart the recording
+		if (deathTime != -1 && (System.nanoTime() - deathTime) / 1000000 > RESPAWN_DELAY_MS) {
+			reset();
+		}
+	}
+
+	public void draw(Graphics2D g) {
+		//draw background
+		bg.draw(g);
+
+		//draw map
+		tileMap.draw(g);
+
+		//draw entities and player
+		for(int i = 0; i < orbs.size(); i++) {
+			orbs.get(i).draw(g);
+		}
+
+		for (int i = 0; i < pads.size(); i++) {
+			pads.get(i).draw(g);
+		}
+
+		if (running && pm != null) pm.draw(g);
+
+		for (int i = 0; i < gportals.size(); i++) {
+			gportals.get(i).draw(g);
+		}
+
+		for (int i = 0; i < portals.size(); i++) {
+			portals.get(i).draw(g);
+		}
+
+		for (int i = 0; i < explosions.size(); i++) {
+			explosions.get(i).setMapPosition((int)tileMap.getx(), (int)tileMap.gety());
+			explosions.get(i).draw(g);
+		}
+
+		if (reader != null) {
+			g.setColor(new Color(1, 1, 1, 0.5f));
+			g.setFont(new Font("Calibri", Font.BOLD, 20));
+			g.drawString("tick " + reader.getTick() + "/" + reader.getNumTicks(), GamePanel.WIDTH/2-50, 20);
+			if (playbackSpeed != NORMAL_SPEED) {
+				g.drawString("speed: " + (double)PLAYBACK_TICK_RATES[playbackSpeed]/PLAYBACK_TICK_RATES[NORMAL_SPEED] + "x", GamePanel.WIDTH-130, 20);
+			}
+		}
+		//Note: draw is set up to draw objects in order of appearance
+	}
+
+	//key listeners
+	public void keyPressed(int k) {
+		if (k == KeyEvent.VK_ESCAPE) {
+			gsm.beginState(GameStateManager.PAUSESTATE);		//esc to pause
+			GamePanel.numTicks = PLAYBACK_TICK_RATES[NORMAL_SPEED];
+		}
+		if (k == KeyEvent.VK_R) {reset();} 		//r to restart the recording
+		if (k == KeyEvent.VK_M) {nextReplay();}	//m to play the next recording of this level
+	}
+
+	public void keyReleased(int k) {
+		if (k == KeyEvent.VK_COMMA) {
+			playbackSpeed--;
+			if (playbackSpeed < 0) playbackSpeed = 0;
+			GamePanel.numTicks = PLAYBACK_TICK_RATES[playbackSpeed];
+		}
+		if (k == KeyEvent.VK_PERIOD) {
+			playbackSpeed++;
+			if (playbackSpeed > PLAYBACK_TICK_RATES.length-1) playbackSpeed = PLAYBACK_TICK_RATES.length-1;
+			GamePanel.numTicks = PLAYBACK_TICK_RATES[playbackSpeed];
+		}
+	}
+
+	//method to reset player, music, and some entites in order to restart the recording
+	private void reset() {
+		if (replay == null) return;
+		deathTime = -1;
+		setPlayer();
+		running = true;
+		playMusic();
+		for (int i = 0; i < orbs.size(); i++) {
+			orbs.get(i).setActivated(false);
+		}
+		for (int i = 0; i < pads.size(); i++) {
+			pads.get(i).setActivated(false);
+		}
+	}
+
+	//creating and spawning the player where the recording started
+	private void setPlayer() {
+		pm = new PlayerManager(tileMap);
+		pm.getPlayer().setPosition(replay.getSpawnX(), replay.getSpawnY());
+		reader = replay.reader();
+	}
+}
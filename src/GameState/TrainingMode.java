@@ -7,37 +7,35 @@ import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 import Audio.AudioPlayer;
 import Entity.*;
 import Main.GamePanel;
 import TileMap.Background;
+import TileMap.LevelCompiler;
 import TileMap.TileMap;
 
-import JavaNN.Training.*;
+import AI.DeathMap;
+import AI.RunConfig;
+import AI.TrainingSimulation;
 import JavaNN.Util.Config;
 
+//draws and times the training, the genetic algorithm and physics themselves are in TrainingSimulation
 public class TrainingMode extends Mode{
+	private TrainingSimulation sim;
+	private RunConfig config;	//read from RunConfig.DEFAULT_PATH every time training starts
 	private ArrayList<PlayerManager> players;
+	private GhostRenderer ghosts;
 	private double deathTime; 	//keeps track of time of death, to create a 1 second respawn delay
 	private boolean running;	//determines if the player should be updated
-	
-	private Population population;
-	private int numAlive;
-	private int generation;
-	private int trainingSpeed;
+	private boolean dedup;		//applied to the simulation from the next generation
+	private boolean showDeaths;	//draws the death map as a strip along the bottom of the level
+	private int trainingSpeed;	//index into config.tickRates, one past the end for uncapped
 
 	private static final int BASE_RESPAWN_DELAY = 250;
-	private static final double SPAWN_X = 320; 
-	private static final double SPAWN_Y = 560; 
-
-	private static final int AI_VIEW_DISTANCE = 5;
-	private static final int POPULATION_SIZE = 50;
-	private static final int[] NETWORK_ARCHITECTURE = {AI_VIEW_DISTANCE + 1, 6, 4, 1};
-	private static final int[] TRAINING_TICK_RATES = {60, 120, 240, 600, 2400, 6000};
 
 	private static final float TRAILING_OPACITY = 0.15f;
+	private static final int DEATH_STRIP_HEIGHT = 12;
 
     public TrainingMode(GameStateManager gsm, Background bg, TileMap tileMap, AudioPlayer music) {
         this.gsm = gsm;
@@ -53,162 +51,93 @@ public class TrainingMode extends Mode{
 		portals = new ArrayList<Portal>();
 		explosions = new ArrayList<Explosion>();
 
-		numAlive = POPULATION_SIZE;
-		generation = 0;
 		trainingSpeed = 0;
     }
 
     public void init() {
         // initialize tilemap
         tileMap.loadTiles();
-		tileMap.loadMap();
+		LevelCompiler.load(tileMap);
 		tileMap.setPosition(0, 0);
 		tileMap.setTween(1);
 
 		// clear old entities
-		orbs.clear();
-		pads.clear();
-		gportals.clear();
-		portals.clear();
 		explosions.clear();
 
-        // create entities by scanning the level's tilemap
-		scanMap(tileMap.getMap());
-
-		population = new Population(POPULATION_SIZE, NETWORK_ARCHITECTURE);
+		// the simulation creates the entities of the compiled level, and the players
+		config = RunConfig.loadDefault();
+		dedup = config.dedup;
+		sim = new TrainingSimulation(tileMap, config);
+		sim.setGhosts(true);
+		sim.startGeneration();
+		orbs = sim.getOrbs();
+		pads = sim.getPads();
+		gportals = sim.getGravityPortals();
+		portals = sim.getPortals();
+		players = sim.getPlayers();
+		ghosts = new GhostRenderer(TRAILING_OPACITY, config.maxDrawnPlayers);
 
-        //initialize player settings
-		players.clear();
-		for (int i = 0; i < POPULATION_SIZE; i++) {
-			players.add(new PlayerManager(tileMap));
-		}
 		deathTime = -1;
-		setPlayers();
 		running = true;
-		numAlive = POPULATION_SIZE;
-		generation = 0;
-		trainingSpeed = 0;
-		GamePanel.numTicks = TRAINING_TICK_RATES[trainingSpeed];
+		setSpeed(0);
 
 		Config.saveMostFitPerGen = false;
     }
 
     public void update() {
-		if (numAlive == 0 && running) {
-			deathTime = System.nanoTime();
-			running = false;
-			stopMusic();
-		}
-
 		//if it has been 1 second since dying, respawn the player
-		int respawnDelay = Math.floorDiv(BASE_RESPAWN_DELAY, GamePanel.numTicks/60);
+		int respawnDelay = Math.floorDiv(BASE_RESPAWN_DELAY, Math.max(1, GamePanel.numTicks/60));
 		if (deathTime != -1 && (System.nanoTime() - deathTime) / 1000000 > respawnDelay) {
-			population.selectParentsByRank(2);
-			population.crossoverPopulation();
-			population.mutatePopulation();
-			population.updatePopulation();
-			reset();
-			generation++;
-			if (Config.saveMostFitPerGen) {
-				population.getMostFit().getNetwork().saveToFile("ai_models/temp/training-gen-"+generation+".model", true);
-			}
+			sim.setDedup(dedup);
+			sim.nextGeneration();
+			restart();
 		}
 
-		int leadingPlayer = getLeadingPlayer();
-		
-		for (int i = 0; i < POPULATION_SIZE; i++) {
-			PlayerManager pm = players.get(i);
-			Player player = pm.getPlayer();
-			Agent agent = population.getAgents()[i];
-
-			if (player.isDead()) continue;
+		int leadingPlayer = sim.getLeadingPlayer();
 
-			//update player
-			if (running) pm.update();
+		if (running) {
+			sim.tick();
 
-			// win condition
-			if(player.atEndOfLevel()) {
-				player.setMoving(false);
-				if (player.getDX() == 0) {
-					running = false;
-					gsm.setState(GameStateManager.WINSTATE);
-					agent.setFitness(player.getx());
-					if (Config.saveWinner) {
-						agent.getNetwork().saveToFile("ai_models/training-win.model", true);
-					}
-					System.out.println("Finished training on generation " + generation + ".");
-					GamePanel.numTicks = TRAINING_TICK_RATES[0];
-				}
-			}
-			
-			// death update
-			if(player.isDead()) {
+			for (int i = 0; i < sim.getNumDeaths(); i++) {
+				Player player = players.get(sim.getDeath(i)).getPlayer();
 				Explosion explosion = new Explosion(player.getx(), player.gety());
-				if (i != leadingPlayer) {
+				if (sim.getDeath(i) != leadingPlayer) {
 					explosion.setOpacity(TRAILING_OPACITY);
 				}
 				explosions.add(explosion);
-				numAlive--;
-				agent.setFitness(player.getx());
 			}
 
-			// get jump input from neural network
-			double[] networkInputs = getNetworkInputs(pm, true);
-			double networkOutput = agent.act(networkInputs)[0];
-			boolean shouldJump = networkOutput >= 0.98;
-			if (shouldJump) {
-				startJumping(pm);
-			} else {
-				stopJumping(pm);
-			}
-	
-			//update background
-			bg.setPosition(tileMap.getx(), tileMap.gety());
-	
-			//update entities
-			for (int j = 0; j < orbs.size(); j++) {
-				if (player.intersects(orbs.get(j)) && player.getJumping() && player.isFirstJump() && !orbs.get(j).getActivatedOnce()) {
-					player.hitOrb(orbs.get(j));
-				}
-				orbs.get(j).update();
-			}
-			
-			for (int j = 0; j < pads.size(); j++) {
-				if (player.intersects(pads.get(j)) && !pads.get(j).getActivatedOnce()) {
-					player.hitPad(pads.get(j));
-				}
+			// win condition
+			if (sim.hasWinner()) {
+				running = false;
+				gsm.setState(GameStateManager.WINSTATE);
+				System.out.println("Finished training on generation " + sim.getGeneration() + ".");
+				setSpeed(0);
 			}
-			
-			for (int j = 0; j < gportals.size(); j++) {
-				if (player.intersects(gportals.get(j))) {
-					if (gportals.get(j).getType() == GravityPortal.NORMAL || gportals.get(j).getType() == GravityPortal.NORMALH) {
-						if (player.getGravity() != 1) player.flipGravity();
-					}
-					else {
-						if (player.getGravity() != -1) player.flipGravity();
-					}
-				}
-			}
-			
-			for (int j = 0; j < portals.size(); j++) {
-				if (player.intersects(portals.get(j))) {
-					if(portals.get(j).getType() == Portal.CUBE) pm.setPlayer(Portal.CUBE);
-					else if(portals.get(j).getType() == Portal.SHIP) pm.setPlayer(Portal.SHIP);
-					else if(portals.get(j).getType() == Portal.BALL) pm.setPlayer(Portal.BALL);
-					else if(portals.get(j).getType() == Portal.WAVE) pm.setPlayer(Portal.WAVE);
-				}
+			else if (sim.getNumAlive() == 0) {
+				if (sim.getEndReason() != null) System.out.println("Generation " + sim.getGeneration() + " ended early: " + sim.getEndReason());
+				deathTime = System.nanoTime();
+				running = false;
+				stopMusic();
 			}
 		}
 
+		for (int j = 0; j < orbs.size(); j++) {
+			orbs.get(j).update();
+		}
+
 		//locks the vertical movement of the screen for modes other than Cube
 		// lock camera movement to the player furthest ahead
-		Player player = players.get(getLeadingPlayer()).getPlayer();
+		Player player = players.get(sim.getLeadingPlayer()).getPlayer();
 		if (player instanceof Cube) {
 			tileMap.setPosition(GamePanel.WIDTH / 2 - player.getx(), GamePanel.HEIGHT / 2 - player.gety()); 
 		}
 		else {
 			tileMap.setPosition(GamePanel.WIDTH / 2 - player.getx());
 		}
+
+		//update background
+		bg.setPosition(tileMap.getx(), tileMap.gety());
 		
 		//update explosion
 		for (int j = 0; j < explosions.size(); j++) {
@@ -234,15 +163,9 @@ public class TrainingMode extends Mode{
 		}
 		
 		if (running) {
-			int leadingPlayer = getLeadingPlayer();
-			g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, TRAILING_OPACITY));
-			// draw the trailing players in reverse order, with translucency
-			for (int i = players.size()-1; i >= 0; i--) {
-				if (!players.get(i).getPlayer().isDead() && i != leadingPlayer) {
-					players.get(i).draw(g);	
-				}
-			}
-			g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
+			int leadingPlayer = sim.getLeadingPlayer();
+			// draw the trailing players with translucency, as sprites or as one density image when there are too many on screen
+			ghosts.draw(g, sim, players, leadingPlayer, tileMap);
 			// draw the leading player last so it's on top and opaque
 			players.get(leadingPlayer).draw(g);
 		}
@@ -262,16 +185,26 @@ public class TrainingMode extends Mode{
 		}
 		g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
 
+		if (showDeaths) drawDeaths(g);
 
 		g.setColor(new Color(1, 1, 1, 0.5f));
 		g.setFont(new Font("Calibri", Font.BOLD, 20));
-		g.drawString("Gen " + generation, GamePanel.WIDTH/2-20, 20);
+		g.drawString("Gen " + sim.getGeneration(), GamePanel.WIDTH/2-20, 20);
 
 		// String speed = new String(new char[trainingSpeed]).replace("\0", ">");
-		if (trainingSpeed != 0) {
-			String speed = TRAINING_TICK_RATES[trainingSpeed]/TRAINING_TICK_RATES[0] + "x";
+		if (GamePanel.uncapped) {
+			g.drawString("speed: max, " + GamePanel.getTickRate() + " ticks/s", GamePanel.WIDTH-230, 20);
+		}
+		else if (trainingSpeed != 0) {
+			String speed = config.tickRates[trainingSpeed]/config.tickRates[0] + "x";
 			g.drawString("speed: " + speed, GamePanel.WIDTH-100, 20);
 		}
+		if (sim.isDedup()) {
+			g.drawString("paths: " + sim.getNumPaths() + "/" + sim.getNumAlive(), 10, 20);
+		}
+		if (sim.getNumCached() > 0) {
+			g.drawString("cached: " + sim.getNumCached(), 10, 40);
+		}
 
 		//Note: draw is set up to draw objects in order of appearance
 	}
@@ -285,7 +218,7 @@ public class TrainingMode extends Mode{
 		}
 		if (k == KeyEvent.VK_ESCAPE){
 			gsm.beginState(GameStateManager.PAUSESTATE);		//esc to pause
-			GamePanel.numTicks = TRAINING_TICK_RATES[0];
+			setSpeed(0);
 		} 
 		if (k == KeyEvent.VK_R) {reset();} 		//r to restart level
 	}
@@ -298,42 +231,63 @@ public class TrainingMode extends Mode{
 			// }
 		}
 		if (k == KeyEvent.VK_COMMA) {
-			trainingSpeed--;
-			if (trainingSpeed < 0) trainingSpeed = 0;
-			GamePanel.numTicks = TRAINING_TICK_RATES[trainingSpeed];
-			System.out.println("tick rate target: " + GamePanel.numTicks);
+			setSpeed(trainingSpeed - 1);
+			System.out.println("tick rate target: " + (GamePanel.uncapped ? "max" : GamePanel.numTicks));
 		}
 		if (k == KeyEvent.VK_PERIOD) {
-			trainingSpeed++;
-			if (trainingSpeed > TRAINING_TICK_RATES.length-1) trainingSpeed = TRAINING_TICK_RATES.length-1;
-			GamePanel.numTicks = TRAINING_TICK_RATES[trainingSpeed];
-			System.out.println("tick rate target: " + GamePanel.numTicks);
+			setSpeed(trainingSpeed + 1);
+			System.out.println("tick rate target: " + (GamePanel.uncapped ? "max" : GamePanel.numTicks));
+		}
+		if (k == KeyEvent.VK_D) {
+			dedup = !dedup;
+			System.out.println("trajectory dedup " + (dedup ? "on" : "off") + " from the next generation");
+		}
+		if (k == KeyEvent.VK_H) {
+			showDeaths = !showDeaths;
+			if (showDeaths) System.out.println("stuck the longest at " + sim.getDeathMap().describeWorst(3));
 		}
 	}
 
-	private void startJumping(PlayerManager pm) {
-		pm.getPlayer().setJumping(true);
-		//calculating the firstJump condition
-		if (pm.getPlayer().isFirstClick()) {
-			pm.getPlayer().setFirstClickTime(System.nanoTime());
-			pm.getPlayer().setFirstClick(false);
-		}
-		if ((System.nanoTime() - pm.getPlayer().getFirstClickTime()) / 1000000 < 100) {
-			pm.getPlayer().setFirstJump(true);
+	//a heat strip of where agents died since training started, one cell per visible column, redder for more deaths
+	//columns a generation got stuck in are marked on top
+	private void drawDeaths(Graphics2D g) {
+		DeathMap deathMap = sim.getDeathMap();
+		if (deathMap.getMaxDeaths() == 0) return;
+		int tileSize = deathMap.getTileSize();
+		int mapX = (int)tileMap.getx();
+		int y = GamePanel.HEIGHT - DEATH_STRIP_HEIGHT;
+		double max = Math.log1p(deathMap.getMaxDeaths());
+		int firstCol = Math.max(0, -mapX / tileSize);
+		int lastCol = Math.min(deathMap.getNumCols() - 1, (GamePanel.WIDTH - mapX) / tileSize);
+		for (int col = firstCol; col <= lastCol; col++) {
+			long deaths = deathMap.getDeaths(col);
+			if (deaths == 0) continue;
+			float heat = (float)(Math.log1p(deaths) / max);
+			g.setColor(new Color(1, 1 - heat, 0, 0.25f + 0.5f * heat));
+			g.fillRect(col * tileSize + mapX, y, tileSize, DEATH_STRIP_HEIGHT);
+			if (deathMap.getGenerationsStuck(col) > 0) {
+				g.setColor(Color.WHITE);
+				g.fillRect(col * tileSize + mapX, y, tileSize, 2);
+			}
 		}
-		else pm.getPlayer().setFirstJump(false);
 	}
 
-	private void stopJumping(PlayerManager pm) {
-		pm.getPlayer().setJumping(false);
-		pm.getPlayer().setFirstClick(true);
+	//the step above the last tick rate runs the game uncapped, with numTicks left at the last rate for the respawn delay
+	private void setSpeed(int speed) {
+		trainingSpeed = Math.max(0, Math.min(config.tickRates.length, speed));
+		GamePanel.uncapped = trainingSpeed == config.tickRates.length;
+		GamePanel.numTicks = config.tickRates[Math.min(trainingSpeed, config.tickRates.length - 1)];
 	}
 
     //method to reset player, music, and some entites in order to restart the level
 	protected void reset() {
-		numAlive = POPULATION_SIZE;
+		sim.setDedup(dedup);
+		sim.startGeneration();
+		restart();
+	}
+
+	private void restart() {
 		deathTime = -1;
-		setPlayers();
 		running = true;
 		playMusic();
 		for (int i = 0; i < orbs.size(); i++) {
@@ -343,55 +297,4 @@ public class TrainingMode extends Mode{
 			pads.get(i).setActivated(false);
 		}
 	}
-
-    //creating and spawning the player
-	protected void setPlayers() {
-		int playerInd = 0;
-		double spawnX = SPAWN_X;
-		while (playerInd < players.size()) {
-			if (spawnX < 10) spawnX = SPAWN_X;
-			PlayerManager pm = players.get(playerInd);
-			pm.getPlayer().setDead(false);
-			pm.init();
-			pm.getPlayer().initValues();
-			pm.getPlayer().setPosition(spawnX, SPAWN_Y);
-			playerInd++;
-			spawnX -= pm.getPlayer().getDX();
-		}
-	}
-
-	private int getLeadingPlayer() {
-		int furthest = 0;
-		for (int i = 1; i < players.size(); i++) {
-			if (players.get(i).getPlayer().getx() >= players.get(furthest).getPlayer().getx()) {
-				furthest = i;
-			}
-		}
-		return furthest;
-	}
-
-	private double[] getNetworkInputs(PlayerManager pm, boolean shouldNormalize) {
-		int tileSize = tileMap.getTileSize();
-		int playerFront = pm.getPlayer().getx() + pm.getPlayer().getCWidth()/2;
-		int nextColX = Math.ceilDiv(playerFront, tileSize) * tileSize;
-
-		double[] output = new double[AI_VIEW_DISTANCE + 1]; // network can see 10 blocks in front
-		output[0] = nextColX - playerFront;
-		
-		byte[][] map = tileMap.getMap();
-		byte[] row = map[(int)SPAWN_Y/32];
-		int col = (int)Math.ceil((double)playerFront / tileSize);
-		for (int i = 0; i+col < row.length && i < AI_VIEW_DISTANCE; i++) {
-			output[i+1] = (double)row[i+col];
-		}
-
-		if (shouldNormalize) {
-			output[0] /= tileSize;
-			for (int i = 1; i < output.length; i++) {
-				if (output[i] > 0) output[i] = 1;
-			}
-		}
-
-		return output;
-	}
 }
@@ -0,0 +1,167 @@
+package Main;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import Audio.AudioPlayer;
+import GameState.AIMode;
+import GameState.GameStateManager;
+import GameState.LevelState;
+import GameState.ModeManager;
+import GameState.ReplayMode;
+
+/* Renders a run of AI mode or a recorded replay to image files without opening a window, as fast as frames can be drawn.
+* The game is updated and drawn into off-screen images one tick per frame, so the output plays at 60 fps whatever GamePanel.numTicks is.
+* Finished frames go through a bounded queue to encoder threads, which write either numbered PNGs or one raw rgb24 stream
+* (frames.rgb, turn it into a video with e.g. ffmpeg -f rawvideo -pix_fmt rgb24 -s 640x448 -r 60 -i frames.rgb run.mp4).
+* Export stops when the run finishes the level, a short while after the player dies, or after -frames frames. */
+//usage: java Main.FrameExporter level map [-model file | -replay [file]] [-out dir] [-raw] [-encoders n] [-frames n]
+public class FrameExporter {
+	private static final int QUEUE_SIZE = 16;
+	private static final int DEATH_FRAMES = 45;		//frames of the explosion after a death
+	private static final int DEFAULT_MAX_FRAMES = 60 * 60 * 5;
+
+	private static final BufferedImage END = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);	//tells an encoder there are no more frames
+
+	//a rendered frame and its number
+	private static class Frame {
+		BufferedImage image;
+		int number;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String level = null;
+		String model = null;
+		String replay = null;
+		boolean replayMode = false;
+		String out = "export";
+		boolean raw = false;
+		int encoders = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		int maxFrames = DEFAULT_MAX_FRAMES;
+		boolean understood = true;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-model")) model = args[++i];
+			else if (args[i].equals("-replay")) {
+				replayMode = true;
+				if (i + 1 < args.length && !args[i + 1].startsWith("-")) replay = args[++i];
+			}
+			else if (args[i].equals("-out")) out = args[++i];
+			else if (args[i].equals("-raw")) raw = true;
+			else if (args[i].equals("-encoders")) encoders = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-frames")) maxFrames = Integer.parseInt(args[++i]);
+			else if (args[i].startsWith("-")) understood = false;
+			else level = args[i];
+		}
+		int state = levelState(level);
+		if (!understood || state == -1 || encoders < 1 || maxFrames < 1) {
+			System.out.println("usage: java Main.FrameExporter level map [-model file | -replay [file]] [-out dir] [-raw] [-encoders n] [-frames n]");
+			return;
+		}
+		if (raw) encoders = 1;	//one stream, in order
+
+		AudioPlayer.setMuted(true);
+		GameStateManager gsm = new GameStateManager();
+		gsm.setMode(replayMode ? ModeManager.REPLAY_MODE : ModeManager.AI_MODE);
+		gsm.beginState(state);
+		LevelState levelState = (LevelState)gsm.getCurrentState();
+		if (!replayMode) ((AIMode)levelState.getCurrentMode()).setSaveReplays(false);
+		if (model != null) ((AIMode)levelState.getCurrentMode()).setModel(model);
+		if (replay != null) ((ReplayMode)levelState.getCurrentMode()).setReplay(replay);
+
+		File dir = new File(out);
+		dir.mkdirs();
+		ArrayBlockingQueue<Frame> frames = new ArrayBlockingQueue<Frame>(QUEUE_SIZE);
+		ArrayBlockingQueue<BufferedImage> free = new ArrayBlockingQueue<BufferedImage>(QUEUE_SIZE + encoders + 1);
+		for (int i = 0; i < QUEUE_SIZE + encoders + 1; i++) {
+			free.add(new BufferedImage(GamePanel.WIDTH, GamePanel.HEIGHT, BufferedImage.TYPE_INT_RGB));
+		}
+		AtomicInteger written = new AtomicInteger();
+		Thread[] threads = new Thread[encoders];
+		OutputStream rawOut = raw ? new BufferedOutputStream(new FileOutputStream(new File(dir, "frames.rgb")), 1 << 20) : null;
+		for (int i = 0; i < encoders; i++) {
+			threads[i] = new Thread(() -> encode(frames, free, dir, rawOut, written), "encoder-" + i);
+			threads[i].start();
+		}
+
+		long start = System.nanoTime();
+		int numFrames = 0;
+		int framesLeft = -1;	//counts down once the attempt is over
+		try {
+			while (numFrames < maxFrames && framesLeft != 0) {
+				gsm.update();
+				if (gsm.getCurrentState() != levelState) break;		//finished the level, or there was nothing to play
+				BufferedImage image = free.take();
+				Graphics2D g = image.createGraphics();
+				gsm.draw(g);
+				g.dispose();
+				Frame frame = new Frame();
+				frame.image = image;
+				frame.number = numFrames++;
+				frames.put(frame);
+				if (framesLeft > 0) framesLeft--;
+				else if (framesLeft == -1 && levelState.getCurrentMode().isAttemptOver()) framesLeft = DEATH_FRAMES;
+			}
+		} finally {
+			for (int i = 0; i < encoders; i++) {
+				Frame end = new Frame();
+				end.image = END;
+				frames.put(end);
+			}
+			for (Thread t : threads) t.join();
+			if (rawOut != null) rawOut.close();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Exported %d frames (%.1f s of video) to %s in %.1f s, %.0f frames/s%n",
+			written.get(), written.get() / 60.0, dir.getPath(), seconds, written.get() / seconds);
+	}
+
+	//runs on an encoder thread until it takes END off the queue
+	private static void encode(ArrayBlockingQueue<Frame> frames, ArrayBlockingQueue<BufferedImage> free, File dir, OutputStream rawOut, AtomicInteger written) {
+		byte[] rgb = rawOut == null ? null : new byte[GamePanel.WIDTH * GamePanel.HEIGHT * 3];
+		try {
+			while (true) {
+				Frame frame = frames.take();
+				if (frame.image == END) return;
+				try {
+					if (rawOut != null) {
+						int[] pixels = ((DataBufferInt)frame.image.getRaster().getDataBuffer()).getData();
+						for (int i = 0; i < pixels.length; i++) {
+							rgb[i * 3] = (byte)(pixels[i] >> 16);
+							rgb[i * 3 + 1] = (byte)(pixels[i] >> 8);
+							rgb[i * 3 + 2] = (byte)pixels[i];
+						}
+						rawOut.write(rgb);
+					}
+					else ImageIO.write(frame.image, "png", new File(dir, String.format("frame-%05d.png", frame.number)));
+					written.incrementAndGet();
+				} catch (IOException e) {
+					System.out.println("Could not write frame " + frame.number + ": " + e.getMessage());
+				}
+				free.put(frame.image);	//the renderer waits for images, so they go back even if writing failed
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	//the level state that plays a level map, -1 if there is none
+	private static int levelState(String level) {
+		if (level == null) return -1;
+		switch (level) {
+			case "Level1Map": return GameStateManager.LEVEL1STATE;
+			case "TrainingLevel0Map": return GameStateManager.TRAINING_LEVEL_0_STATE;
+			case "TestingLevel0Map": return GameStateManager.TESTING_LEVEL_0_STATE;
+			default: return -1;
+		}
+	}
+}
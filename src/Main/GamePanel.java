@@ -18,6 +18,7 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseLis
 	private boolean running;
 	private static int frames;
 	private static int ticks;
+	private static int tickRate;	//ticks done in the last whole second
 		
 	//image
 	private BufferedImage image;
@@ -32,8 +33,10 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseLis
 	// game physics
 	public static int numTicks = 60;
 	public static int maxNumFrames = 60;
+	public static boolean uncapped = false;		//updates back to back as fast as they run, ignoring numTicks
+	public static final int UNCAPPED_FPS = 30;	//frames drawn per second of wall clock time while uncapped
 
-	private final String[] modes = {"", "Training", "AI"};
+	private final String[] modes = {"", "Training", "AI", "Replay"};
 	private final Font modeFont = new Font("Calibri", Font.BOLD, 20);
 	
 	public GamePanel() {
@@ -74,26 +77,44 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseLis
 		double delta = 0;
 		long timer = System.currentTimeMillis();
 		int framesPerTick = 0;
+		long lastFrame = lastTime;
 		while (running) {
-			double ns = 1000000000 / (double)numTicks;
-			long now = System.nanoTime();
-			delta += (now - lastTime) / ns;
-			lastTime = now;
-			while (delta >= 1) {
+			//uncapped, draw whatever state the updates have got to every 1/UNCAPPED_FPS seconds
+			if (uncapped) {
 				update();
-				delta--;
-				framesPerTick = 0;
 				ticks++;
+				long now = System.nanoTime();
+				if (running && now - lastFrame >= 1000000000 / UNCAPPED_FPS) {
+					draw();
+					drawToScreen();
+					frames++;
+					lastFrame = now;
+				}
+				lastTime = now;		//so pacing picks up from here, not with a backlog of ticks
+				delta = 0;
 			}
-			if (running && framesPerTick < (double)maxNumFrames/numTicks) {
-				draw();
-				drawToScreen();
-				framesPerTick++;
-				frames++;
+			else {
+				double ns = 1000000000 / (double)numTicks;
+				long now = System.nanoTime();
+				delta += (now - lastTime) / ns;
+				lastTime = now;
+				while (delta >= 1) {
+					update();
+					delta--;
+					framesPerTick = 0;
+					ticks++;
+				}
+				if (running && framesPerTick < (double)maxNumFrames/numTicks) {
+					draw();
+					drawToScreen();
+					framesPerTick++;
+					frames++;
+				}
 			}
 
 			if (System.currentTimeMillis() - timer > 1000) {
 				timer += 1000;
+				tickRate = ticks;
 				System.out.println("Ticks: " + ticks + "   \tFPS: " + frames);
 				frames = 0;
 				ticks = 0;
@@ -111,6 +132,9 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseLis
 		}
 	}
 	
+	//ticks actually done in the last second, which is less than numTicks when updates can't keep up
+	public static int getTickRate() {return tickRate;}
+	
 	//gsm is a class i made to handle different game states
 	private void update() {
 		gsm.update();
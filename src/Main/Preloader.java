@@ -0,0 +1,117 @@
+package Main;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import Audio.AudioData;
+import Entity.Sprites;
+import TileMap.LevelCompiler;
+
+/* Decodes every image and sound effect under Resources/ and loads every compiled level at startup, on a pool of worker threads, while GameState.LoadingState shows the progress.
+* The results go into Entity.Sprites, Audio.AudioData and TileMap.LevelCompiler, which the rest of the game already reads its assets from,
+* so startup takes about as long as the slowest asset instead of all of them one after another.
+* An asset that fails to load is reported and skipped, whatever uses it will try again and report it the usual way. */
+public class Preloader {
+	//resource folders and what is in them
+	private static final String[] IMAGE_DIRS = {"/Sprites", "/Tilesets", "/Backgrounds"};
+	private static final String[] SOUND_DIRS = {"/SFX"};		//music is streamed as it plays, see Audio.StreamingAudioPlayer
+
+	private ArrayList<String> images;
+	private ArrayList<String> sounds;
+	private String[] levels;
+	private AtomicInteger numLoaded;
+	private ExecutorService pool;
+
+	public Preloader() {
+		images = new ArrayList<String>();
+		sounds = new ArrayList<String>();
+		for (String dir : IMAGE_DIRS) images.addAll(list(dir));
+		for (String dir : SOUND_DIRS) sounds.addAll(list(dir));
+		levels = LevelCompiler.LEVELS;
+		numLoaded = new AtomicInteger();
+	}
+
+	//starts decoding in the background, sounds first since they take the longest
+	public void start() {
+		pool = Executors.newFixedThreadPool(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), getNumAssets())), r -> {
+			Thread t = new Thread(r, "preloader");
+			t.setDaemon(true);
+			return t;
+		});
+		for (String path : sounds) {
+			pool.execute(() -> load(path, true));
+		}
+		for (String path : images) {
+			pool.execute(() -> load(path, false));
+		}
+		for (String level : levels) {
+			pool.execute(() -> loadLevel(level));
+		}
+		pool.shutdown();
+	}
+
+	private void load(String path, boolean sound) {
+		try {
+			if (sound) AudioData.get(path);
+			else Sprites.get(path);
+		} catch (Exception e) {
+			System.out.println("Could not preload " + path + ": " + e);
+		}
+		numLoaded.incrementAndGet();
+	}
+
+	private void loadLevel(String level) {
+		try {
+			LevelCompiler.load(LevelCompiler.create(level, 32));
+		} catch (Exception e) {
+			System.out.println("Could not preload " + level + ": " + e);
+		}
+		numLoaded.incrementAndGet();
+	}
+
+	public int getNumAssets() {return images.size() + sounds.size() + levels.length;}
+	public int getNumLoaded() {return numLoaded.get();}
+	public boolean isDone() {return numLoaded.get() == getNumAssets();}
+
+	//files directly in a resource folder, whether the resources are a folder or inside a jar, empty if the folder is not there
+	private static ArrayList<String> list(String dir) {
+		ArrayList<String> paths = new ArrayList<String>();
+		URL url = Preloader.class.getResource(dir);
+		if (url == null) return paths;
+		try {
+			URI uri = url.toURI();
+			Path folder;
+			if (uri.getScheme().equals("jar")) {
+				FileSystem jar;
+				try {
+					jar = FileSystems.newFileSystem(uri, Collections.emptyMap());
+				} catch (FileSystemAlreadyExistsException e) {
+					jar = FileSystems.getFileSystem(uri);
+				}
+				folder = jar.getPath(dir);
+			}
+			else folder = Paths.get(uri);
+			try (Stream<Path> files = Files.list(folder)) {
+				files.filter(Files::isRegularFile).forEach(f -> paths.add(dir + "/" + f.getFileName()));
+			}
+		} catch (IOException | URISyntaxException e) {
+			System.out.println("Could not list " + dir + ": " + e);
+		}
+		Collections.sort(paths);
+		return paths;
+	}
+}
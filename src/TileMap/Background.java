@@ -3,7 +3,8 @@ package TileMap;
 import Main.GamePanel;
 import java.awt.*;
 import java.awt.image.*;
-import javax.imageio.ImageIO;
+
+import Entity.Sprites;
 
 public class Background {
 	private BufferedImage image;
@@ -18,7 +19,7 @@ public class Background {
 	public Background(String s, double ms) {
 		
 		try {
-			image = ImageIO.read(getClass().getResourceAsStream(s));	//the background image, to be initialized its employed state
+			image = Sprites.get(s);	//the background image, shared with every other background that uses it
 			moveScale = ms;
 		}
 		catch(Exception e) {
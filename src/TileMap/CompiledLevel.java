@@ -0,0 +1,102 @@
+package TileMap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/* A level after LevelCompiler has run it, everything a mode needs to start playing it (.gdlv on disk, big-endian):
+*
+*	int		magic				"GDLV"
+*	short	version				FORMAT_VERSION
+*	UTF		levelId
+*	byte[32]	hash			SHA-256 of the level's class, see LevelCompiler.hash
+*	int		tileSize, numRows, numCols
+*	int		xmin, xmax, ymin, ymax
+*	numRows times byte[numCols] map			tile codes
+*	numRows times byte[numCols] types		collision type of every tile, see Tile
+*	int		numEntities
+*	numEntities times int code, int x, int y	in world coordinates, see EntityScanner.find
+*
+* A compiled level is shared by every tilemap of the level, so nothing here may be changed once it is built.
+* The exception is a GeneratedLevel's own level, which is never shared or saved: its columns are written as the course is generated. */
+public class CompiledLevel {
+	public static final int MAGIC = 0x47444C56;		//"GDLV"
+	public static final short FORMAT_VERSION = 1;
+	public static final String EXTENSION = ".gdlv";
+
+	String levelId;
+	byte[] hash;
+	int tileSize;
+	int xmin;
+	int xmax;
+	int ymin;
+	int ymax;
+	byte[][] map;
+	byte[][] types;
+	int[][] entities;
+
+	CompiledLevel() {}
+
+	public String getLevelId() {return levelId;}
+	public int getTileSize() {return tileSize;}
+	public int getNumRows() {return map.length;}
+	public int getNumCols() {return map[0].length;}
+	public byte[][] getMap() {return map;}
+	public byte[][] getTypes() {return types;}
+	public int[][] getEntities() {return entities;}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(FORMAT_VERSION);
+		out.writeUTF(levelId);
+		out.write(hash);
+		out.writeInt(tileSize);
+		out.writeInt(map.length);
+		out.writeInt(map[0].length);
+		out.writeInt(xmin);
+		out.writeInt(xmax);
+		out.writeInt(ymin);
+		out.writeInt(ymax);
+		for (byte[] row : map) out.write(row);
+		for (byte[] row : types) out.write(row);
+		out.writeInt(entities.length);
+		for (int[] e : entities) {
+			out.writeInt(e[0]);
+			out.writeInt(e[1]);
+			out.writeInt(e[2]);
+		}
+	}
+
+	//null if the file was compiled from a different version of the level, or with a different tile size
+	static CompiledLevel read(DataInputStream in, String levelId, byte[] hash, int tileSize) throws IOException {
+		if (in.readInt() != MAGIC) throw new IOException("not a compiled level");
+		short version = in.readShort();
+		if (version != FORMAT_VERSION) return null;
+		if (!in.readUTF().equals(levelId)) return null;
+		byte[] fileHash = new byte[hash.length];
+		in.readFully(fileHash);
+		if (!Arrays.equals(fileHash, hash)) return null;
+		if (in.readInt() != tileSize) return null;
+
+		CompiledLevel level = new CompiledLevel();
+		level.levelId = levelId;
+		level.hash = hash;
+		level.tileSize = tileSize;
+		int numRows = in.readInt();
+		int numCols = in.readInt();
+		level.xmin = in.readInt();
+		level.xmax = in.readInt();
+		level.ymin = in.readInt();
+		level.ymax = in.readInt();
+		level.map = new byte[numRows][numCols];
+		level.types = new byte[numRows][numCols];
+		for (byte[] row : level.map) in.readFully(row);
+		for (byte[] row : level.types) in.readFully(row);
+		level.entities = new int[in.readInt()][];
+		for (int i = 0; i < level.entities.length; i++) {
+			level.entities[i] = new int[]{in.readInt(), in.readInt(), in.readInt()};
+		}
+		return level;
+	}
+}
@@ -0,0 +1,415 @@
+package TileMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import Entity.EntityScanner;
+import Entity.GravityPortal;
+import Entity.Orb;
+import Entity.Pad;
+import Entity.PlayerBatch;
+import Entity.PlayerManager;
+import Entity.Portal;
+import Main.GamePanel;
+
+/* A level made up from a seed, written into the tilemap a segment of columns at a time as far as generateTo asks for,
+* so a training run only generates as much of a course as its leading player gets to, and can play a new course every generation.
+* The map starts out as flat ground, and generate(seed) starts it over with another course in the same arrays.
+*
+* A segment is a run-up, one obstacle (spikes or thorns, blocks, slabs over a spike pit, an orb or a pad to get over something,
+* or a gravity, ship, ball or wave portal section that ends back in a cube) and a landing. Difficulty goes from 0 to 1 and makes
+* run-ups shorter, obstacles bigger and the orb, pad and portal segments more likely.
+*
+* Passable: before a segment is kept, a search through the jump inputs with the real physics (an Entity.PlayerBatch, trajectories in
+* the same state merged like trajectory deduplication merges them) has to find a way from where players enter the segment to its end,
+* back on the floor as a cube with normal gravity, which is how the next segment is entered. Otherwise the segment is made again,
+* easier each time, and flat ground is the last resort. Players all run at the same speed, so they enter a segment at the same x
+* whatever they did before it, and the search starts exactly there.
+*
+* The same seed and settings always give the same course, however far at a time it is generated. */
+//usage: java TileMap.GeneratedLevel [seed] [length] [difficulty] [courses]
+public final class GeneratedLevel extends TileMap {
+	public static final int DEFAULT_LENGTH = 400;
+	public static final int MIN_LENGTH = 64;
+	public static final double SPAWN_X = 320;		//where players spawn, see AI.TrainingSimulation
+	public static final int NUM_ROWS = 20;
+	public static final int FLOOR_ROW = 17;		//row players run along, the ground is the one below it
+
+	private static final int START_COLUMNS = 16;		//flat ground from the spawn before the first segment
+	private static final int END_COLUMNS = 8;			//and after the last, Player.atEndOfLevel is true in the last three
+	private static final int MIN_SEGMENT_WIDTH = 6;		//a segment has at most one orb and one pad, so this bounds them
+	private static final int LANDING = 5;				//flat columns after an obstacle, about a jump's length
+	private static final int PORTAL_LANDING = 6;		//a cube can leave a portal section high up
+	private static final int MAX_TRIES = 6;
+	private static final int STEER_TICKS = 4;			//a ship, ball or wave changes input only every this many ticks in the search
+	private static final int MAX_TICKS = 512;			//longest a segment can take to cross
+	private static final int MAX_STATES = 1 << 14;		//states the search gives up after
+	private static final int MAX_SEGMENT_TRIGGERS = 8;
+
+	//segments
+	private static final int FLAT = 0;
+	private static final int SPIKES = 1;
+	private static final int BLOCKS = 2;
+	private static final int SLABS = 3;
+	private static final int ORB = 4;
+	private static final int PAD = 5;
+	private static final int GRAVITY = 6;
+	private static final int SHIP = 7;
+	private static final int BALL = 8;
+	private static final int WAVE = 9;
+
+	private long seed;
+	private double difficulty;
+	private boolean portals;
+	private SplittableRandom random;
+	private CompiledLevel level;
+	private byte[] typeOf;				//collision type of every tile code
+	private int generatedCols;			//columns [0, generatedCols) are final
+	private double entryX;				//x players enter column generatedCols at
+	private ArrayList<int[]> entities;
+
+	//stats of the course so far
+	private int numSegments;
+	private int numRetries;
+	private int numFlat;				//segments that fell back to flat ground
+
+	//the search, with the entities of the segment it checks
+	private PlayerBatch solver;
+	private ArrayList<Orb> orbs;
+	private ArrayList<Pad> pads;
+	private ArrayList<GravityPortal> gportals;
+	private ArrayList<Portal> portalList;
+	private int[] choices;				//inputs tried so far at every depth
+	private boolean[] held;				//input the player at every depth got there with, tried again first
+	private long[] visited;				//open addressing table of the states visited in the current search
+	private int[] visitedIn;			//search a slot was filled in, so the table never has to be cleared
+	private int search;
+
+	public GeneratedLevel(int tileSize) {
+		this(tileSize, 0, DEFAULT_LENGTH, 0.5, true);
+	}
+
+	public GeneratedLevel(int tileSize, long seed, int length, double difficulty, boolean portals) {
+		super(tileSize);
+		loadTiles();
+		typeOf = new byte[JO];
+		for (int rc = 0; rc < JO; rc++) {
+			typeOf[rc] = (byte)tiles[rc / tilesetWidth][rc % tilesetWidth].getType();
+		}
+		entities = new ArrayList<int[]>();
+		orbs = new ArrayList<Orb>();
+		pads = new ArrayList<Pad>();
+		gportals = new ArrayList<GravityPortal>();
+		portalList = new ArrayList<Portal>();
+		choices = new int[MAX_TICKS];
+		held = new boolean[MAX_TICKS];
+		visited = new long[2 * MAX_STATES];
+		visitedIn = new int[2 * MAX_STATES];
+		this.seed = seed;
+		configure(length, difficulty, portals);
+	}
+
+	//a new size and difficulty, which starts the course over, do this before anything is built from the level
+	public void configure(int length, double difficulty, boolean portals) {
+		if (length < MIN_LENGTH) throw new IllegalArgumentException("A generated level needs at least " + MIN_LENGTH + " columns");
+		if (difficulty < 0 || difficulty > 1) throw new IllegalArgumentException("Difficulty has to be between 0 and 1");
+		this.difficulty = difficulty;
+		this.portals = portals;
+		numRows = NUM_ROWS;
+		numCols = length;
+		height = numRows * tileSize;
+		width = numCols * tileSize;
+		ymin = GamePanel.HEIGHT - height;
+		ymax = 0;
+		xmin = GamePanel.WIDTH - width;
+		xmax = 0;
+
+		level = new CompiledLevel();
+		level.levelId = getLevelId();
+		level.tileSize = tileSize;
+		level.xmin = xmin;
+		level.xmax = xmax;
+		level.ymin = ymin;
+		level.ymax = ymax;
+		level.map = new byte[numRows][numCols];
+		level.types = new byte[numRows][numCols];
+		level.entities = new int[0][];
+		setCompiledLevel(level);
+		solver = new PlayerBatch(this, MAX_TICKS, orbs, pads, gportals, portalList, MAX_SEGMENT_TRIGGERS, MAX_SEGMENT_TRIGGERS);
+		generate(seed);
+	}
+
+	//starts over with the course of another seed, flat ground until generateTo is called
+	public void generate(long seed) {
+		this.seed = seed;
+		random = new SplittableRandom(seed);
+		clear(0, numCols);
+		entities.clear();
+		level.entities = new int[0][];
+		generatedCols = 0;
+		entryX = SPAWN_X;
+		numSegments = 0;
+		numRetries = 0;
+		numFlat = 0;
+	}
+
+	//the whole course, for LevelCompiler
+	public void loadMap() {
+		generate(seed);
+		generateTo(numCols);
+	}
+
+	//writes segments until the columns before col are final, returns whether anything was written
+	public boolean generateTo(int col) {
+		col = Math.min(col, numCols);
+		if (generatedCols >= col) return false;
+		int from = generatedCols;
+		if (generatedCols == 0) {
+			entryX = solve(SPAWN_X, START_COLUMNS);
+			generatedCols = START_COLUMNS;
+		}
+		while (generatedCols < col && generatedCols < numCols - END_COLUMNS) {
+			nextSegment();
+		}
+		if (generatedCols >= numCols - END_COLUMNS) generatedCols = numCols;
+		int[][] found = EntityScanner.find(map, tileSize, from, generatedCols);
+		entities.addAll(Arrays.asList(found));
+		if (found.length > 0) level.entities = entities.toArray(new int[0][]);
+		return true;
+	}
+
+	//tries segments until one is passable
+	private void nextSegment() {
+		int from = generatedCols;
+		int room = numCols - END_COLUMNS - from;
+		for (int t = 0; t <= MAX_TRIES; t++) {
+			double d = difficulty * (1 - (double)t / MAX_TRIES);
+			int kind = t == MAX_TRIES || room < 2 * MIN_SEGMENT_WIDTH ? FLAT : pickSegment(d);
+			int w = write(kind, from, d, room);
+			if (w > room) {
+				clear(from, from + w);
+				continue;
+			}
+			double exit = solve(entryX, from + w);
+			if (exit >= 0) {
+				entryX = exit;
+				generatedCols = from + w;
+				numSegments++;
+				if (kind == FLAT) numFlat++;
+				return;
+			}
+			clear(from, from + w);
+			numRetries++;
+		}
+		throw new IllegalStateException("Flat ground at column " + from + " is not passable");
+	}
+
+	private int pickSegment(double d) {
+		double r = random.nextDouble();
+		if (portals && r < 0.1 + 0.2 * d) {
+			int p = random.nextInt(4);
+			return p == 0 ? GRAVITY : p == 1 ? SHIP : p == 2 ? BALL : WAVE;
+		}
+		r = random.nextDouble();
+		if (r < 0.35) return SPIKES;
+		if (r < 0.55) return BLOCKS;
+		if (r < 0.7) return SLABS;
+		if (r < 0.85) return ORB;
+		return PAD;
+	}
+
+	//writes a segment at column c and returns its width, which may be more than there is room for
+	private int write(int kind, int c, double d, int room) {
+		int gap = 2 + random.nextInt((int)(6 * (1 - d)) + 2);
+		if (kind == FLAT) return Math.min(room, MIN_SEGMENT_WIDTH);
+		int o = c + gap;	//first column of the obstacle
+		if (kind == SPIKES) {
+			int n = 1 + random.nextInt(1 + (int)Math.round(2 * d));
+			int code = random.nextDouble() < 0.3 ? TH : SPK;
+			for (int i = 0; i < n; i++) set(FLOOR_ROW, o + i, code);
+			return gap + n + LANDING;
+		}
+		if (kind == BLOCKS) {
+			int w = 1 + random.nextInt(1 + (int)Math.round(3 * d));
+			int h = random.nextDouble() < d ? 2 : 1;
+			if (h == 2) {
+				//a cube only just gets onto high blocks, from a run up
+				for (int i = 0; i < w; i++) {
+					for (int k = 0; k < h; k++) set(FLOOR_ROW - k, o + 1 + i, B);
+				}
+				return gap + 1 + w + LANDING;
+			}
+			for (int i = 0; i < w; i++) set(FLOOR_ROW, o + i, B);
+			//a spike on the far end of the blocks to jump off them over, or spikes after them
+			if (w >= 3 && random.nextDouble() < d) {
+				set(FLOOR_ROW - 1, o + w - 1, SPK);
+				return gap + w + LANDING;
+			}
+			int after = random.nextDouble() < d ? 1 + random.nextInt(2) : 0;
+			for (int i = 0; i < after; i++) set(FLOOR_ROW, o + w + i, SPK);
+			return gap + w + after + LANDING;
+		}
+		if (kind == SLABS) {
+			int k = 3 + random.nextInt(1 + (int)Math.round(3 * d));
+			for (int i = 0; i < k; i++) set(FLOOR_ROW, o + i, SPK);
+			for (int i = 1; i < k - 1; i++) set(FLOOR_ROW - 1, o + i, SLB);
+			return gap + k + LANDING;
+		}
+		if (kind == ORB) {
+			//a spike pit too long to jump, with an orb to jump again from
+			int k = 6 + random.nextInt(1 + (int)Math.round(2 * d));
+			for (int i = 0; i < k; i++) set(FLOOR_ROW, o + i, SPK);
+			set(FLOOR_ROW - 2, o + 2 + random.nextInt(2), JO);
+			return gap + k + LANDING;
+		}
+		if (kind == PAD) {
+			//a wall too high to jump, or a pit too long to, after a jump pad
+			set(FLOOR_ROW, o, JP);
+			if (random.nextBoolean()) {
+				for (int i = 0; i < 2; i++) {
+					for (int k = 0; k < 3; k++) set(FLOOR_ROW - k, o + 3 + i, B);
+				}
+				return gap + 5 + PORTAL_LANDING;
+			}
+			//four spikes are as many as a pad jump clears
+			for (int i = 0; i < 4; i++) set(FLOOR_ROW, o + 1 + i, SPK);
+			return gap + 5 + LANDING;
+		}
+		return gap + writePortalSection(kind, o, d) + PORTAL_LANDING;
+	}
+
+	//a section played upside down or in another mode, between a ceiling and the floor, returns how many columns it takes
+	private int writePortalSection(int kind, int o, double d) {
+		int len = 8 + random.nextInt(4 + (int)Math.round(8 * d));
+		int ceiling = kind == SHIP || kind == WAVE ? FLOOR_ROW - 6 : FLOOR_ROW - 4;
+		for (int i = 0; i <= len; i++) set(ceiling, o + i, B);
+		int spacing = 6 - (int)Math.round(2 * d);
+
+		if (kind == GRAVITY) {
+			set(FLOOR_ROW, o, GP);
+			for (int i = 4; i < len - 1; i += spacing + random.nextInt(2)) set(ceiling + 1, o + i, USP);
+			set(ceiling + 1, o + len, NP);
+			set(FLOOR_ROW - 1, o + len, NP);
+			return len + 1;
+		}
+
+		set(FLOOR_ROW, o, kind == SHIP ? SP : kind == BALL ? BP : WP);
+		boolean floor = random.nextBoolean();
+		for (int i = 4; i < len - 1; i += spacing + random.nextInt(2)) {
+			if (kind == BALL) set(floor ? FLOOR_ROW : ceiling + 1, o + i, floor ? SPK : USP);
+			else {
+				//pillars up from the floor and down from the ceiling, leaving a gap of at least two rows
+				int h = 1 + random.nextInt(1 + (int)Math.round(2 * d));
+				for (int k = 0; k < h; k++) set(floor ? FLOOR_ROW - k : ceiling + 1 + k, o + i, B);
+			}
+			floor = !floor;
+		}
+		//two cube portals on top of each other reach from the floor to the ceiling
+		set(FLOOR_ROW, o + len, CP);
+		set(FLOOR_ROW - 3, o + len, CP);
+		return len + 1;
+	}
+
+	//searches through every jump input for a way from a player on the floor at x to column to, and back onto the floor there
+	//returns the x players leave the columns at, or -1 if there is no way through
+	//depth first, the input of the tick before tried first, with every state visited once: slot d of the solver holds the player d ticks in
+	private double solve(double x, int to) {
+		int from = (int)x / tileSize;
+		orbs.clear();
+		pads.clear();
+		gportals.clear();
+		portalList.clear();
+		EntityScanner.spawn(this, EntityScanner.find(map, tileSize, from, to), orbs, pads, gportals, portalList);
+		solver.updateEntities();
+		search++;
+		int numVisited = 0;
+
+		double floorY = FLOOR_ROW * tileSize + tileSize / 2;
+		solver.spawn(0, x, floorY);
+		solver.update(0);
+		choices[0] = 0;
+		held[0] = false;
+		int d = 0;
+		while (d >= 0) {
+			if (choices[d] == 2 || d + 1 == MAX_TICKS || choices[d] == 1 && solver.getMode(d) != PlayerManager.CUBE && d % STEER_TICKS != 0) {
+				d--;
+				continue;
+			}
+			int s = d + 1;
+			solver.copyState(d, s);
+			held[s] = choices[d]++ == 0 ? held[d] : !held[d];
+			solver.applyInput(s, held[s]);
+			solver.normalizeInput(s);
+			if (!visit(solver.stateHash(s))) continue;
+			if (++numVisited > MAX_STATES) return -1;
+			solver.update(s);
+			if (solver.isDead(s)) continue;
+			if (solver.getX(s) >= to * tileSize) {
+				if (solver.getMode(s) == PlayerManager.CUBE && solver.getGravity(s) == 1 && !solver.isFalling(s) && solver.getY(s) == floorY) return solver.getX(s);
+				continue;
+			}
+			d = s;
+			choices[d] = 0;
+		}
+		return -1;
+	}
+
+	//marks a state as visited in this search, false if it already was
+	private boolean visit(long hash) {
+		int mask = visited.length - 1;
+		int slot = (int)(hash ^ (hash >>> 32)) * 0x9E3779B9 & mask;
+		while (visitedIn[slot] == search) {
+			if (visited[slot] == hash) return false;
+			slot = (slot + 1) & mask;
+		}
+		visited[slot] = hash;
+		visitedIn[slot] = search;
+		return true;
+	}
+
+	//flat ground
+	private void clear(int from, int to) {
+		for (int col = from; col < Math.min(to, numCols); col++) {
+			for (int row = 0; row < numRows; row++) set(row, col, A);
+			set(FLOOR_ROW + 1, col, GR);
+			set(FLOOR_ROW + 2, col, S);
+		}
+	}
+
+	private void set(int row, int col, int rc) {
+		if (col >= numCols) return;
+		map[row][col] = (byte)rc;
+		types[row][col] = rc < JO ? typeOf[rc] : Tile.NORMAL;
+	}
+
+	//names the course in the fitness cache, so a genome is not scored by its run on another course
+	public String getCourseId() {
+		return getLevelId() + "-" + Long.toHexString(seed) + "-" + numCols + "-" + difficulty + (portals ? "" : "-noportals");
+	}
+
+	//getters
+	public long getSeed() {return seed;}
+	public double getDifficulty() {return difficulty;}
+	public int getGeneratedCols() {return generatedCols;}
+	public int getNumSegments() {return numSegments;}
+	public int getNumRetries() {return numRetries;}
+	public int getNumFlat() {return numFlat;}
+	public int getMaxOrbs() {return numCols / MIN_SEGMENT_WIDTH;}	//most orbs and pads a course of this length can have
+	public int getMaxPads() {return numCols / MIN_SEGMENT_WIDTH;}
+
+	public static void main(String[] args) {
+		long seed = args.length > 0 ? Long.parseLong(args[0]) : 0;
+		int length = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LENGTH;
+		double difficulty = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+		int courses = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+		GeneratedLevel level = new GeneratedLevel(32, seed, length, difficulty, true);
+		for (int i = 0; i < courses; i++) {
+			long start = System.nanoTime();
+			level.generate(seed + i);
+			level.generateTo(length);
+			System.out.printf("course %d: %d segments, %d retries, %d flat, %d entities, %.2f ms%n", seed + i, level.getNumSegments(),
+				level.getNumRetries(), level.getNumFlat(), level.getCompiledLevel().getEntities().length, (System.nanoTime() - start) / 1e6);
+		}
+	}
+}
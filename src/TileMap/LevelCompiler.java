@@ -0,0 +1,140 @@
+package TileMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentHashMap;
+
+import Entity.EntityScanner;
+import Main.GamePanel;
+
+/* Builds levels once instead of every time a mode starts one.
+* Compiling a level runs its loadMap, works out the collision type of every tile and finds its entities, and saves all of it as levels/<level>.gdlv.
+* Modes call load instead of loadMap: the level comes from memory if this program has used it already, else from its file,
+* and is only compiled again when the file is missing or was made from a different version of the level's class, which the hash in the file tells.
+* Main.Preloader loads every level while the game starts, and running this class compiles them all ahead of time. */
+//usage: java TileMap.LevelCompiler [level map ...]
+public class LevelCompiler {
+	//the maps of the level states in GameStateManager
+	public static final String[] LEVELS = {"Level1Map", "TrainingLevel0Map", "TestingLevel0Map"};
+	public static final String DIR = "levels";
+
+	private static final ConcurrentHashMap<String, CompiledLevel> loaded = new ConcurrentHashMap<String, CompiledLevel>();
+
+	public static void main(String[] args) throws Exception {
+		String[] levels = args.length > 0 ? args : LEVELS;
+		for (String name : levels) {
+			TileMap tileMap = create(name, 32);
+			long start = System.nanoTime();
+			CompiledLevel level = compile(tileMap, hash(tileMap));
+			save(level);
+			System.out.printf("%-20s %d x %d tiles, %d entities, %.1f ms -> %s%n", name, level.getNumCols(), level.getNumRows(),
+				level.entities.length, (System.nanoTime() - start) / 1e6, path(name));
+		}
+	}
+
+	//the compiled file of a level
+	public static String path(String levelId) {
+		return DIR + "/" + levelId + CompiledLevel.EXTENSION;
+	}
+
+	//levels are looked up by the simple name of their TileMap class
+	public static TileMap create(String name, int tileSize) throws ReflectiveOperationException {
+		return (TileMap)Class.forName("TileMap." + name).getConstructor(int.class).newInstance(tileSize);
+	}
+
+	//puts the tilemap's level into it, in place of loadMap, and returns it so its entities can be created
+	public static CompiledLevel load(TileMap tileMap) {
+		CompiledLevel level = tileMap.getCompiledLevel();
+		if (level == null) {
+			level = loaded.computeIfAbsent(tileMap.getLevelId() + "@" + tileMap.getTileSize(), key -> loadOrCompile(tileMap));
+			tileMap.setCompiledLevel(level);
+		}
+		return level;
+	}
+
+	private static CompiledLevel loadOrCompile(TileMap tileMap) {
+		byte[] hash = hash(tileMap);
+		if (hash == null) return compile(tileMap, hash);	//nothing to tell a stale file by, so always compile
+		File file = new File(path(tileMap.getLevelId()));
+		if (file.exists()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				CompiledLevel level = CompiledLevel.read(in, tileMap.getLevelId(), hash, tileMap.getTileSize());
+				if (level != null) return level;
+			} catch (IOException e) {
+				System.out.println("Could not read " + file + ", compiling it again: " + e.getMessage());
+			}
+		}
+		CompiledLevel level = compile(tileMap, hash);
+		try {
+			save(level);
+		} catch (IOException e) {
+			System.out.println("Could not save " + file + ": " + e.getMessage());
+		}
+		return level;
+	}
+
+	//runs the level's loadMap and works out everything else from the map
+	private static CompiledLevel compile(TileMap tileMap, byte[] hash) {
+		tileMap.setCompiledLevel(null);
+		if (tileMap.tiles == null) tileMap.loadTiles();
+		tileMap.loadMap();
+		CompiledLevel level = new CompiledLevel();
+		level.levelId = tileMap.getLevelId();
+		level.hash = hash;
+		level.tileSize = tileMap.getTileSize();
+		level.xmin = tileMap.xmin;
+		level.xmax = tileMap.xmax;
+		level.ymin = tileMap.ymin;
+		level.ymax = tileMap.ymax;
+		level.map = tileMap.getMap();
+		level.types = new byte[level.map.length][level.map[0].length];
+		for (int row = 0; row < level.map.length; row++) {
+			for (int col = 0; col < level.map[0].length; col++) {
+				level.types[row][col] = (byte)tileMap.getType(row, col);
+			}
+		}
+		level.entities = EntityScanner.find(level.map, level.tileSize);
+		return level;
+	}
+
+	//written to a temporary file first, as several training processes may be compiling the same level
+	private static void save(CompiledLevel level) throws IOException {
+		if (level.hash == null) throw new IOException("the class of " + level.levelId + " could not be read");
+		File file = new File(path(level.levelId));
+		file.getParentFile().mkdirs();
+		File temp = File.createTempFile(level.levelId, ".tmp", file.getParentFile());
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			level.write(out);
+		} catch (IOException e) {
+			temp.delete();
+			throw e;
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	//SHA-256 of the level's class file and the screen size its bounds are worked out for, null if the class file can't be read
+	private static byte[] hash(TileMap tileMap) {
+		Class<?> c = tileMap.getClass();
+		try (InputStream in = c.getResourceAsStream(c.getSimpleName() + ".class")) {
+			if (in == null) return null;
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) > 0) digest.update(buffer, 0, n);
+			digest.update((GamePanel.WIDTH + "x" + GamePanel.HEIGHT).getBytes());
+			return digest.digest();
+		} catch (Exception e) {
+			return null;
+		}
+	}
+}
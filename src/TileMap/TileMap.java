@@ -3,8 +3,7 @@ package TileMap;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
-import javax.imageio.ImageIO;
-
+import Entity.Sprites;
 import Main.GamePanel;
 
 public abstract class TileMap {
@@ -27,6 +26,8 @@ public abstract class TileMap {
 	protected int numCols;
 	protected int width;
 	protected int height;
+	protected byte[][] types;		//collision type of every tile, from the compiled level
+	private CompiledLevel compiledLevel;
 	
 	//tileset
 	protected BufferedImage tileset;
@@ -78,7 +79,7 @@ public abstract class TileMap {
 
 	public void loadTiles() {
 		try {
-			tileset = ImageIO.read(getClass().getResourceAsStream("/Tilesets/prtileset.png"));	//reads the tileset image into a spritesheet
+			tileset = Sprites.get("/Tilesets/prtileset.png");	//the tileset image, read once and shared by every tilemap
 			tilesetWidth = tileset.getWidth() / tileSize;
 			tilesetHeight = tileset.getHeight() / tileSize;
 			tiles = new Tile[tilesetHeight][tilesetWidth];		//create a 2d array of Tiles to store the individual tiles on the tileset
@@ -101,6 +102,9 @@ public abstract class TileMap {
 	
 	//abstract method to be implemented by subclasses of maps as they all have a different map
 	public abstract void loadMap();
+
+	//name used to tell levels apart in saved files such as replays
+	public String getLevelId() {return getClass().getSimpleName();}
 	
 	//getters / setters
 	public int getTileSize() {return tileSize;}
@@ -109,9 +113,30 @@ public abstract class TileMap {
 	public int getWidth() {return width;}
 	public int getHeight() {return height;}
 	public byte[][] getMap(){return map;}
+	public CompiledLevel getCompiledLevel() {return compiledLevel;}
+
+	//takes the map, bounds and tile types from a level built by LevelCompiler instead of loadMap
+	void setCompiledLevel(CompiledLevel level) {
+		compiledLevel = level;
+		if (level == null) {
+			types = null;
+			return;
+		}
+		map = level.map;
+		types = level.types;
+		numRows = level.getNumRows();
+		numCols = level.getNumCols();
+		height = numRows * tileSize;
+		width = numCols * tileSize;
+		xmin = level.xmin;
+		xmax = level.xmax;
+		ymin = level.ymin;
+		ymax = level.ymax;
+	}
 	
 	//returns the type of a tile given its position in the level map
 	public int getType(int row, int col) {
+		if (types != null) return types[row][col];
 		int rc = map[row][col];
 		if (rc > 32) return Tile.NORMAL;
 		int r = rc / tilesetWidth;